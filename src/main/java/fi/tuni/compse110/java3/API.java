@@ -1,83 +1,98 @@
 package fi.tuni.compse110.java3;
 
+import java.io.Reader;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import fi.tuni.compse110.java3.data.CryptoHistoryEntry;
-import fi.tuni.compse110.java3.data.MetalCurrentData;
-import fi.tuni.compse110.java3.data.MetalHistoryEntryAll;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import fi.tuni.compse110.java3.data.ApiError;
+import fi.tuni.compse110.java3.data.ApiResult;
+import fi.tuni.compse110.java3.data.CryptoChartData;
+import fi.tuni.compse110.java3.data.Metal;
+import fi.tuni.compse110.java3.data.TimeSeries;
+import fi.tuni.compse110.java3.io.CachePolicy;
 import fi.tuni.compse110.java3.io.CachedRequest;
 import fi.tuni.compse110.java3.io.CachedResponse;
+import fi.tuni.compse110.java3.io.RequestPriority;
 import fi.tuni.compse110.java3.utility.Constants;
 import fi.tuni.compse110.java3.utility.DialogUtils;
 import fi.tuni.compse110.java3.utility.HistoryChunk;
+import fi.tuni.compse110.java3.utility.LoadingCache;
 import fi.tuni.compse110.java3.utility.Parser;
-import javafx.scene.chart.XYChart;
 
 /**
  * Handles getting data for the controller using other components.
  */
 public class API {
 
-    // Fetch list of available cryptocurrencies from API and store it in cache.
-    static {
-        try {
-            CachedResponse response = CachedRequest.get(
-                    "https://api.coingecko.com/api/v3/coins/list?x_cg_demo_api_key=" + Constants.API_KEY_CRYPTOS,
-                    24 * 60 * 60);
-
-            System.out.println((System.currentTimeMillis() - response.getTime()) / 1000 +
-                    " seconds ago: " + response.getResponse());
-
-            AVAILABLE_CRYPTOS_CACHE = Parser.parseCoinsList(response.getResponse());
-        } catch (Exception ex) {
-            DialogUtils.showErrorDialog("Failed to fetch available cryptocurrencies", ex);
-        }
-    }
-
     /**
      * Available crypto names.
      */
-    private static final List<String> CRYPTOCURRENCIES = new ArrayList<>(Constants.DEFAULT_CRYPTOCURRENCIES);
+    private static final CopyOnWriteArrayList<String> CRYPTOCURRENCIES = new CopyOnWriteArrayList<>(
+            Constants.DEFAULT_CRYPTOCURRENCIES);
 
     /**
      * Available metal names.
      */
-    private static final List<String> METALS = new ArrayList<>(Constants.DEFAULT_METALS);
+    private static final List<String> METALS = List.copyOf(Constants.DEFAULT_METALS);
 
     /**
      * Available currency names.
      */
-    private static final List<String> CURRENCIES = new ArrayList<>(Constants.DEFAULT_CURRENCIES);
+    private static final List<String> CURRENCIES = List.copyOf(Constants.DEFAULT_CURRENCIES);
     /**
      * Date format used by metals.dev API.
      */
     private static final DateTimeFormatter METAL_API_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd");
 
     /**
-     * Stores already fetched and parsed history data for cryptos.
+     * Fetches and parses API responses concurrently. The request scheduler keeps the requests within the quota
+     * of each API, so this only bounds how many are in flight.
      */
-    private static final Map<String, List<CryptoHistoryEntry>> CRYPTO_HISTORY_CACHE = new HashMap<>();
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newFixedThreadPool(Constants.FETCH_THREADS,
+            runnable -> {
+                Thread thread = new Thread(runnable, "api-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     /**
-     * Stores already fetched and parsed history data for metals.
+     * Stores already fetched and parsed history data for cryptos by crypto name.
      */
-    private static final Map<Integer, List<MetalHistoryEntryAll>> METAL_HISTORY_CACHE = new HashMap<>();
+    private static final LoadingCache<String, TimeSeries> CRYPTO_HISTORY_CACHE = new LoadingCache<>();
 
     /**
-     * Stores already fetched and parsed exchange rates related to USD.
+     * Stores already fetched and parsed history data for metals by chunk index, Integer.MAX_VALUE for today. Each
+     * chunk is a series with a column for each {@link Metal}.
      */
-    private static final Map<String, Double> EXCHANGE_RATE_CACHE = new HashMap<>();
+    private static final LoadingCache<Integer, TimeSeries> METAL_HISTORY_CACHE = new LoadingCache<>();
 
     /**
-     * Stores already fetched and parsed available cryptos list.
+     * Stores already fetched and parsed exchange rates by base currency. Only USD is used as the base.
      */
-    private static Map<String, String> AVAILABLE_CRYPTOS_CACHE;
+    private static final LoadingCache<String, Map<String, Double>> EXCHANGE_RATE_CACHE = new LoadingCache<>();
+
+    /**
+     * Key of the available cryptos list in AVAILABLE_CRYPTOS_CACHE.
+     */
+    private static final String COIN_LIST = "coins/list";
+
+    /**
+     * Stores already fetched and parsed available cryptos list, crypto ids by name.
+     */
+    private static final LoadingCache<String, Map<String, String>> AVAILABLE_CRYPTOS_CACHE = new LoadingCache<>();
 
     /**
      * Get available crypto names.
@@ -89,12 +104,33 @@ public class API {
     }
 
     /**
-     * Get all available crypto names from API.
+     * Get all available crypto names from API. The list is empty until the available cryptos have been loaded,
+     * see {@link #isCryptoListLoaded()}.
      * 
      * @return list of all available crypto names
      */
     public static List<String> getAllAvailableCryptocurrencies() {
-        return new ArrayList<>(AVAILABLE_CRYPTOS_CACHE.keySet());
+        Map<String, String> coins = AVAILABLE_CRYPTOS_CACHE.getIfPresent(COIN_LIST);
+        return coins == null ? new ArrayList<>() : new ArrayList<>(coins.keySet());
+    }
+
+    /**
+     * Returns whether the list of all available cryptos has been loaded.
+     *
+     * @return true if {@link #getAllAvailableCryptocurrencies()} returns the full list
+     */
+    public static boolean isCryptoListLoaded() {
+        return AVAILABLE_CRYPTOS_CACHE.getIfPresent(COIN_LIST) != null;
+    }
+
+    /**
+     * Starts loading the list of all available cryptos in the background, unless it is loaded or being loaded
+     * already. A failed load is tried again on the next call.
+     *
+     * @return future completed with crypto ids by name
+     */
+    public static CompletableFuture<Map<String, String>> loadCryptoListAsync() {
+        return AVAILABLE_CRYPTOS_CACHE.get(COIN_LIST, API::fetchCryptoList, FETCH_EXECUTOR);
     }
 
     /**
@@ -103,17 +139,16 @@ public class API {
      * @param cryptocurrency crypto name to add
      */
     public static void addAvailableCryptocurrency(String cryptocurrency) {
-        if (!CRYPTOCURRENCIES.contains(cryptocurrency)) {
-            CRYPTOCURRENCIES.add(cryptocurrency);
-        }
+        CRYPTOCURRENCIES.addIfAbsent(cryptocurrency);
     }
 
     /**
      * Reset available crypto names to the default list.
      */
     public static void resetCryptocurrencies() {
-        CRYPTOCURRENCIES.clear();
-        CRYPTOCURRENCIES.addAll(Constants.DEFAULT_CRYPTOCURRENCIES);
+        // Defaults are never removed, so this keeps their order without the list ever being empty in between
+        CRYPTOCURRENCIES.retainAll(Constants.DEFAULT_CRYPTOCURRENCIES);
+        CRYPTOCURRENCIES.addAllAbsent(Constants.DEFAULT_CRYPTOCURRENCIES);
     }
 
     /**
@@ -135,7 +170,88 @@ public class API {
     }
 
     /**
-     * Get crypto prices/volumes chart data for selected cryptocurrencies.
+     * Get price, volume and market cap chart data for selected cryptocurrencies in one pass. Blocks until the data
+     * is available and shows any problems to the user.
+     * Note: Can't go to history past 365 days, a limit by free CoinGecko API.
+     *
+     * @param currencies       selected cryptocurrencies
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange prices to
+     * @return map containing the chart data of each crypto found, in the order of the selection
+     */
+    public static Map<String, CryptoChartData> getCryptoChartData(List<String> currencies, LocalDate startDate,
+            LocalDate endDate, String exchangeCurrency) {
+
+        return report(getCryptoChartDataAsync(currencies, startDate, endDate, exchangeCurrency).join());
+    }
+
+    /**
+     * Get price, volume and market cap chart data for selected cryptocurrencies without blocking. Fetching and
+     * parsing runs on the default fetch executor.
+     *
+     * @param currencies       selected cryptocurrencies
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange prices to
+     * @return future completed with the chart data of each crypto found and the problems encountered
+     * @see #getCryptoChartDataAsync(List, LocalDate, LocalDate, String, Executor)
+     */
+    public static CompletableFuture<ApiResult<Map<String, CryptoChartData>>> getCryptoChartDataAsync(
+            List<String> currencies, LocalDate startDate, LocalDate endDate, String exchangeCurrency) {
+
+        return getCryptoChartDataAsync(currencies, startDate, endDate, exchangeCurrency, FETCH_EXECUTOR);
+    }
+
+    /**
+     * Get price, volume and market cap chart data for selected cryptocurrencies without blocking. Histories
+     * missing from cache are fetched concurrently and each one is parsed as soon as it arrives. Every field is
+     * collected in a single pass over each history. The result is in the order of the selection, and a crypto
+     * that fails doesn't prevent getting the others. The returned future never completes exceptionally, problems
+     * are reported as errors of the result.
+     *
+     * @param currencies       selected cryptocurrencies
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange prices to
+     * @param executor         runs fetching and parsing, which block on the network
+     * @return future completed with the chart data of each crypto found and the problems encountered
+     */
+    public static CompletableFuture<ApiResult<Map<String, CryptoChartData>>> getCryptoChartDataAsync(
+            List<String> currencies, LocalDate startDate, LocalDate endDate, String exchangeCurrency,
+            Executor executor) {
+
+        if (currencies == null || currencies.isEmpty()) {
+            return CompletableFuture.completedFuture(ApiResult.success(new LinkedHashMap<>()));
+        }
+
+        // The selection may change while fetching
+        List<String> selection = List.copyOf(currencies);
+        long start = startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
+        long end = endDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
+
+        return getExchangeRateAsync(exchangeCurrency, executor).thenCompose(exchangeRate -> {
+            if (exchangeRate.getValue() == null) {
+                return CompletableFuture.completedFuture(
+                        new ApiResult<>(new LinkedHashMap<>(), exchangeRate.getErrors()));
+            }
+
+            // Fetch histories missing from cache concurrently, each one is parsed as soon as it arrives
+            Map<String, CompletableFuture<TimeSeries>> histories = new LinkedHashMap<>();
+
+            for (String currency : selection) {
+                histories.put(currency, getCryptoId(currency).thenCompose(
+                        id -> CRYPTO_HISTORY_CACHE.get(currency, () -> fetchCryptoHistory(currency, id), executor)));
+            }
+
+            return CompletableFuture.allOf(histories.values().toArray(new CompletableFuture<?>[0]))
+                    .handle((ignored, ex) -> createCryptoChartData(histories, start, end, exchangeRate.getValue()));
+        });
+    }
+
+    /**
+     * Get crypto prices/volumes chart data for selected cryptocurrencies. Blocks until the data is available and
+     * shows any problems to the user.
      * Note: Can't go to history past 365 days, a limit by free CoinGecko API.
      * 
      * @param currencies       selected cryptocurrencies
@@ -144,84 +260,214 @@ public class API {
      * @param exchangeCurrency currency to exchange to
      * @param getVolume        true if volume data is retrieved, false for price
      *                         data
-     * @return map containing price chart xy values for each crypto
+     * @return map containing the price series of each crypto
+     * @see #getCryptoChartData(List, LocalDate, LocalDate, String)
      */
-    public static Map<String, List<XYChart.Data<Number, Number>>> getCryptos(List<String> currencies,
+    public static Map<String, TimeSeries> getCryptos(List<String> currencies,
             LocalDate startDate, LocalDate endDate, String exchangeCurrency, boolean getVolume) {
 
-        Map<String, List<XYChart.Data<Number, Number>>> chartData = new HashMap<>();
-        Double exchangeRate = getExchangeRate(exchangeCurrency);
+        return report(getCryptosAsync(currencies, startDate, endDate, exchangeCurrency, getVolume).join());
+    }
 
-        if (currencies == null || currencies.isEmpty() || exchangeRate == null) {
-            return chartData;
-        }
+    /**
+     * Get crypto prices/volumes chart data for selected cryptocurrencies without blocking. Fetching and parsing
+     * runs on the default fetch executor.
+     *
+     * @param currencies       selected cryptocurrencies
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange to
+     * @param getVolume        true if volume data is retrieved, false for price data
+     * @return future completed with the series of each crypto found and the problems encountered
+     * @see #getCryptosAsync(List, LocalDate, LocalDate, String, boolean, Executor)
+     */
+    public static CompletableFuture<ApiResult<Map<String, TimeSeries>>> getCryptosAsync(
+            List<String> currencies, LocalDate startDate, LocalDate endDate, String exchangeCurrency,
+            boolean getVolume) {
 
-        long start = startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
-        long end = endDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
+        return getCryptosAsync(currencies, startDate, endDate, exchangeCurrency, getVolume, FETCH_EXECUTOR);
+    }
 
-        for (String currency : currencies) {
-            // Check if already parsed history data is available in cache
-            List<CryptoHistoryEntry> parsedHistory = CRYPTO_HISTORY_CACHE.get(currency);
+    /**
+     * Get crypto prices/volumes chart data for selected cryptocurrencies without blocking. Only one of the fields
+     * of {@link #getCryptoChartDataAsync(List, LocalDate, LocalDate, String, Executor)}.
+     *
+     * @param currencies       selected cryptocurrencies
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange to
+     * @param getVolume        true if volume data is retrieved, false for price data
+     * @param executor         runs fetching and parsing, which block on the network
+     * @return future completed with the series of each crypto found and the problems encountered
+     */
+    public static CompletableFuture<ApiResult<Map<String, TimeSeries>>> getCryptosAsync(
+            List<String> currencies, LocalDate startDate, LocalDate endDate, String exchangeCurrency,
+            boolean getVolume, Executor executor) {
 
-            if (parsedHistory == null) {
-                try {
-                    CachedResponse cryptoHistory = CachedRequest.get(
-                            "https://api.coingecko.com/api/v3/coins/" + AVAILABLE_CRYPTOS_CACHE.get(currency) +
-                                    "/market_chart?vs_currency=usd&days=365&interval=daily&x_cg_demo_api_key="
-                                    + Constants.API_KEY_CRYPTOS,
-                            12 * 60 * 60);
+        return getCryptoChartDataAsync(currencies, startDate, endDate, exchangeCurrency, executor)
+                .thenApply(result -> {
+                    Map<String, TimeSeries> chartData = new LinkedHashMap<>();
 
-                    System.out.println((System.currentTimeMillis() - cryptoHistory.getTime()) / 1000 + " seconds ago: "
-                            + cryptoHistory.getResponse());
+                    result.getValue().forEach((currency, data) -> chartData.put(currency,
+                            getVolume ? data.getVolumes() : data.getPrices()));
 
-                    parsedHistory = Parser.parseCryptoHistoryData(cryptoHistory.getResponse());
+                    return new ApiResult<>(chartData, result.getErrors());
+                });
+    }
 
-                    CRYPTO_HISTORY_CACHE.put(currency, parsedHistory);
-                } catch (Exception ex) {
-                    DialogUtils.showErrorDialog("Failed to get data for " + currency, ex);
-                    return chartData;
-                }
-            }
+    /**
+     * Creates chart data from the completed crypto histories in the order of the selection.
+     *
+     * @param histories    completed history of each selected crypto
+     * @param start        the start timestamp for the data range
+     * @param end          the end timestamp for the data range
+     * @param exchangeRate the exchange rate to convert the prices
+     * @return chart data for each crypto found and the problems encountered
+     */
+    private static ApiResult<Map<String, CryptoChartData>> createCryptoChartData(
+            Map<String, CompletableFuture<TimeSeries>> histories, long start, long end,
+            double exchangeRate) {
 
-            List<XYChart.Data<Number, Number>> dataList = new ArrayList<>();
+        Map<String, CryptoChartData> chartData = new LinkedHashMap<>();
+        List<ApiError> errors = new ArrayList<>();
 
-            for (CryptoHistoryEntry entry : parsedHistory) {
-                if (entry.getTimestamp() < start || entry.getTimestamp() > end) {
-                    continue;
-                }
+        for (Map.Entry<String, CompletableFuture<TimeSeries>> history : histories.entrySet()) {
+            String currency = history.getKey();
+            TimeSeries parsedHistory;
 
-                dataList.add(
-                        new XYChart.Data<>(entry.getTimestamp(),
-                                getVolume ? entry.getVolume() : entry.getPrice() / exchangeRate));
+            try {
+                parsedHistory = history.getValue().join();
+            } catch (CompletionException | CancellationException ex) {
+                errors.add(new ApiError(ApiError.Type.FETCH_FAILED, "Failed to get data for " + currency, ex));
+                continue;
             }
 
-            if (dataList.isEmpty()) {
-                DialogUtils.showWarningDialog("Not Found", "No data found for selected interval for " + currency);
+            // View of the cached history found with binary search, only the points of the date range are visited
+            TimeSeries range = parsedHistory.between(start, end);
+
+            if (range.isEmpty()) {
+                errors.add(new ApiError(ApiError.Type.NOT_FOUND,
+                        "No data found for selected interval for " + currency));
             } else {
-                chartData.put(currency, dataList);
+                chartData.put(currency, new CryptoChartData(range, exchangeRate));
             }
         }
 
-        return chartData;
+        return new ApiResult<>(chartData, errors);
+    }
+
+    /**
+     * Returns the CoinGecko id of a crypto. Ids of the default cryptos are bundled, others need the list of all
+     * available cryptos.
+     *
+     * @param currency the crypto name
+     * @return future completed with the id, or null if there is no such crypto
+     */
+    private static CompletableFuture<String> getCryptoId(String currency) {
+        String id = Constants.DEFAULT_CRYPTO_IDS.get(currency);
+
+        if (id != null) {
+            return CompletableFuture.completedFuture(id);
+        }
+        return loadCryptoListAsync().thenApply(coins -> coins.get(currency));
+    }
+
+    /**
+     * Fetches and parses the list of all available cryptos.
+     *
+     * @return crypto ids by name
+     * @throws Exception if the list couldn't be fetched or parsed
+     */
+    private static Map<String, String> fetchCryptoList() throws Exception {
+        CachedResponse response = CachedRequest.get(
+                Constants.CRYPTO_API_URL + "coins/list?x_cg_demo_api_key=" + Constants.API_KEY_CRYPTOS,
+                24 * 60 * 60, CachePolicy.STALE_WHILE_REVALIDATE, RequestPriority.PREFETCH);
+
+        System.out.println((System.currentTimeMillis() - response.getTime()) / 1000 + " seconds ago: "
+                + response.getLength() + " bytes");
+
+        try (Reader reader = response.openReader()) {
+            return Parser.parseCoinsList(reader);
+        }
     }
 
     /**
-     * Get crypto prices chart data for selected metals.
+     * Fetches and parses the history of a crypto.
+     *
+     * @param currency the crypto name
+     * @param id       the CoinGecko id of the crypto, or null if unknown
+     * @return the parsed history
+     * @throws Exception if the history couldn't be fetched or parsed
+     */
+    private static TimeSeries fetchCryptoHistory(String currency, String id) throws Exception {
+        if (id == null) {
+            throw new NoSuchElementException("Unknown cryptocurrency " + currency);
+        }
+
+        CachedResponse cryptoHistory = CachedRequest.get(
+                Constants.CRYPTO_API_URL + "coins/" + id +
+                        "/market_chart?vs_currency=usd&days=365&interval=daily&x_cg_demo_api_key="
+                        + Constants.API_KEY_CRYPTOS,
+                12 * 60 * 60, CachePolicy.STALE_IF_ERROR);
+
+        System.out.println((System.currentTimeMillis() - cryptoHistory.getTime()) / 1000 + " seconds ago: "
+                + cryptoHistory.getLength() + " bytes");
+
+        try (Reader reader = cryptoHistory.openReader()) {
+            return Parser.parseCryptoHistorySeries(reader);
+        }
+    }
+
+    /**
+     * Get crypto prices chart data for selected metals. Blocks until the data is available and shows any problems
+     * to the user.
      *
      * @param metals           selected metals
      * @param startDate        start date
      * @param endDate          end data
      * @param exchangeCurrency currency to exchange to
-     * @return map containing price chart xy values for each metal
+     * @return map containing the price series of each metal
      */
-    public static Map<String, List<XYChart.Data<Number, Number>>> getMetals(List<String> metals, LocalDate startDate,
+    public static Map<String, TimeSeries> getMetals(List<String> metals, LocalDate startDate,
             LocalDate endDate, String exchangeCurrency) {
 
-        Map<String, List<XYChart.Data<Number, Number>>> chartData = new HashMap<>();
-        Double exchangeRate = getExchangeRate(exchangeCurrency);
+        return report(getMetalsAsync(metals, startDate, endDate, exchangeCurrency).join());
+    }
 
-        if (metals == null || metals.isEmpty() || exchangeRate == null) {
-            return chartData;
+    /**
+     * Get prices chart data for selected metals without blocking. Fetching and parsing runs on the default fetch
+     * executor.
+     *
+     * @param metals           selected metals
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange to
+     * @return future completed with the series of each metal found and the problems encountered
+     * @see #getMetalsAsync(List, LocalDate, LocalDate, String, Executor)
+     */
+    public static CompletableFuture<ApiResult<Map<String, TimeSeries>>> getMetalsAsync(
+            List<String> metals, LocalDate startDate, LocalDate endDate, String exchangeCurrency) {
+
+        return getMetalsAsync(metals, startDate, endDate, exchangeCurrency, FETCH_EXECUTOR);
+    }
+
+    /**
+     * Get prices chart data for selected metals without blocking. Today and every history chunk missing from
+     * cache are fetched concurrently. The returned future never completes exceptionally, problems are reported as
+     * errors of the result.
+     *
+     * @param metals           selected metals
+     * @param startDate        start date
+     * @param endDate          end data
+     * @param exchangeCurrency currency to exchange to
+     * @param executor         runs fetching and parsing, which block on the network
+     * @return future completed with the series of each metal found and the problems encountered
+     */
+    public static CompletableFuture<ApiResult<Map<String, TimeSeries>>> getMetalsAsync(
+            List<String> metals, LocalDate startDate, LocalDate endDate, String exchangeCurrency, Executor executor) {
+
+        if (metals == null || metals.isEmpty()) {
+            return CompletableFuture.completedFuture(ApiResult.success(new LinkedHashMap<>()));
         }
 
         // Always get full 30 days of history and filter that to avoid different API
@@ -230,6 +476,7 @@ public class API {
         // Also, the history data doesn't include current day so we must use a different
         // API call for that.
 
+        List<String> selection = List.copyOf(metals);
         LocalDate today = LocalDate.now();
         long start = startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
         long end = endDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
@@ -241,160 +488,229 @@ public class API {
             endChunk--;
         }
 
-        ArrayList<MetalHistoryEntryAll> parsed = new ArrayList<>();
+        int lastChunk = endChunk;
 
-        if (endDate.isEqual(today)) {
-            // Check if already parsed history data is available in cache
-            List<MetalHistoryEntryAll> parsedHistory = METAL_HISTORY_CACHE.get(Integer.MAX_VALUE);
+        return getExchangeRateAsync(exchangeCurrency, executor).thenCompose(exchangeRate -> {
+            if (exchangeRate.getValue() == null) {
+                return CompletableFuture.completedFuture(
+                        new ApiResult<>(new LinkedHashMap<>(), exchangeRate.getErrors()));
+            }
+
+            // Request today and every missing chunk concurrently, each one is parsed and cached as soon as it arrives
+            // The histories are kept in time order, today after the chunks
+            List<CompletableFuture<TimeSeries>> histories = new ArrayList<>();
+
+            for (int chunk = startChunk; chunk <= lastChunk; chunk++) {
+                int index = chunk;
+                boolean last = chunk == lastChunk;
+                histories.add(METAL_HISTORY_CACHE.get(chunk, () -> fetchMetalHistoryChunk(index, last, today),
+                        executor));
+            }
 
-            if (parsedHistory == null) {
-                try {
-                    CachedResponse metalHistory = CachedRequest.get(
-                            "https://api.metals.dev/v1/latest?api_key=" + Constants.API_KEY_METALS,
-                            12 * 60 * 60);
+            if (endDate.isEqual(today)) {
+                histories.add(METAL_HISTORY_CACHE.get(Integer.MAX_VALUE, () -> fetchCurrentMetals(today),
+                        executor));
+            }
 
-                    System.out.println((System.currentTimeMillis() - metalHistory.getTime()) / 1000 + " seconds ago: "
-                            + metalHistory.getResponse());
+            return CompletableFuture.allOf(histories.toArray(new CompletableFuture<?>[0]))
+                    .handle((ignored, ex) -> createMetalChartData(selection, histories, start, end,
+                            exchangeRate.getValue()));
+        });
+    }
 
-                    MetalCurrentData parsedCurrent = Parser.parseMetalCurrentData(metalHistory.getResponse());
+    /**
+     * Creates chart data for the selected metals from the completed history chunks.
+     *
+     * @param metals       selected metals
+     * @param histories    completed history chunks in time order
+     * @param start        the start timestamp for the data range
+     * @param end          the end timestamp for the data range
+     * @param exchangeRate the exchange rate to convert the metal prices
+     * @return price series of each metal found and the problems encountered
+     */
+    private static ApiResult<Map<String, TimeSeries>> createMetalChartData(
+            List<String> metals, List<CompletableFuture<TimeSeries>> histories, long start, long end,
+            double exchangeRate) {
 
-                    parsedHistory = List
-                            .of(new MetalHistoryEntryAll(today.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000,
-                                    parsedCurrent.getCurrentMetals()));
+        Map<String, TimeSeries> chartData = new LinkedHashMap<>();
+        TimeSeries range = new TimeSeries(new long[0], new double[Metal.values().length][0]);
 
-                    METAL_HISTORY_CACHE.put(Integer.MAX_VALUE, parsedHistory);
-                } catch (Exception ex) {
-                    DialogUtils.showErrorDialog("Failed to get data for metals", ex);
-                    return chartData;
-                }
+        for (CompletableFuture<TimeSeries> history : histories) {
+            try {
+                // Only the part of each chunk within the date range is copied, found with binary search
+                range = range.append(history.join().between(start, end));
+            } catch (CompletionException | CancellationException ex) {
+                return ApiResult.failure(chartData,
+                        new ApiError(ApiError.Type.FETCH_FAILED, "Failed to get data for metals", ex));
             }
+        }
 
-            parsed.addAll(parsedHistory);
+        List<ApiError> errors = new ArrayList<>();
+
+        for (String metal : metals) {
+            addMetal(metal, range, chartData, exchangeRate, errors);
         }
 
-        for (int chunk = startChunk; chunk <= endChunk; chunk++) {
-            LocalDate chunkStart = HistoryChunk.getChunkStart(chunk, 30);
-            LocalDate chunkEnd = HistoryChunk.getChunkEnd(chunk, 30);
-
-            List<MetalHistoryEntryAll> parsedHistory = METAL_HISTORY_CACHE.get(chunk);
-
-            if (parsedHistory == null) {
-                CachedResponse metalHistory;
-                try {
-                    LocalDate yesterday = today.minusDays(1);
-                    LocalDate adjustedChunkEnd = chunkEnd;
-
-                    // In end chunk, make sure we won't request dates in the future
-                    // or today which is handled via separate API call
-                    if (chunk == endChunk) {
-                        if (adjustedChunkEnd.isAfter(yesterday)) {
-                            adjustedChunkEnd = yesterday;
-                        }
-                    }
-
-                    metalHistory = CachedRequest.get(
-                            "https://api.metals.dev/v1/timeseries?api_key=" + Constants.API_KEY_METALS +
-                                    "&start_date=" + METAL_API_DATE_FORMAT.format(chunkStart) +
-                                    "&end_date=" + METAL_API_DATE_FORMAT.format(adjustedChunkEnd),
-                            // No need for full 30 days chunks of history data only to expire
-                            chunkEnd.isBefore(yesterday) ? Integer.MAX_VALUE : 12 * 60 * 60);
-
-                    System.out.println((System.currentTimeMillis() - metalHistory.getTime()) / 1000 + " seconds ago: "
-                            + metalHistory.getResponse());
-
-                    parsedHistory = Parser.parseMetalHistoryData(metalHistory.getResponse());
-
-                    METAL_HISTORY_CACHE.put(chunk, parsedHistory);
-                } catch (Exception ex) {
-                    DialogUtils.showErrorDialog("Failed to get data for metals", ex);
-                    return chartData;
-                }
-            }
+        return new ApiResult<>(chartData, errors);
+    }
 
-            parsed.addAll(parsedHistory);
+    /**
+     * Fetches and parses the current metal prices as the history of today.
+     *
+     * @param today the current date
+     * @return series with the prices of today
+     * @throws Exception if the prices couldn't be fetched or parsed
+     */
+    private static TimeSeries fetchCurrentMetals(LocalDate today) throws Exception {
+        CachedResponse metalHistory = CachedRequest.get(
+                Constants.METALS_API_URL + "latest?api_key=" + Constants.API_KEY_METALS,
+                12 * 60 * 60, CachePolicy.STALE_IF_ERROR);
+
+        System.out.println((System.currentTimeMillis() - metalHistory.getTime()) / 1000 + " seconds ago: "
+                + metalHistory.getLength() + " bytes");
+
+        try (Reader reader = metalHistory.openReader()) {
+            return Parser.parseMetalCurrentSeries(reader, today.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000);
         }
+    }
 
-        for (String metal : metals) {
-            addMetal(metal, parsed, chartData, start, end, exchangeRate);
+    /**
+     * Fetches and parses a 30 day chunk of metal history.
+     *
+     * @param chunk the chunk index
+     * @param last  true if this is the last requested chunk, which may reach today
+     * @param today the current date
+     * @return the parsed history
+     * @throws Exception if the history couldn't be fetched or parsed
+     */
+    private static TimeSeries fetchMetalHistoryChunk(int chunk, boolean last, LocalDate today)
+            throws Exception {
+
+        LocalDate chunkStart = HistoryChunk.getChunkStart(chunk, 30);
+        LocalDate chunkEnd = HistoryChunk.getChunkEnd(chunk, 30);
+        LocalDate yesterday = today.minusDays(1);
+        LocalDate adjustedChunkEnd = chunkEnd;
+
+        // In end chunk, make sure we won't request dates in the future
+        // or today which is handled via separate API call
+        if (last && adjustedChunkEnd.isAfter(yesterday)) {
+            adjustedChunkEnd = yesterday;
         }
 
-        return chartData;
+        CachedResponse metalHistory = CachedRequest.get(
+                Constants.METALS_API_URL + "timeseries?api_key=" + Constants.API_KEY_METALS +
+                        "&start_date=" + METAL_API_DATE_FORMAT.format(chunkStart) +
+                        "&end_date=" + METAL_API_DATE_FORMAT.format(adjustedChunkEnd),
+                // No need for full 30 days chunks of history data only to expire
+                chunkEnd.isBefore(yesterday) ? Integer.MAX_VALUE : 12 * 60 * 60,
+                CachePolicy.STALE_IF_ERROR);
+
+        System.out.println((System.currentTimeMillis() - metalHistory.getTime()) / 1000 + " seconds ago: "
+                + metalHistory.getLength() + " bytes");
+
+        try (Reader reader = metalHistory.openReader()) {
+            return Parser.parseMetalHistorySeries(reader);
+        }
     }
 
     /**
      * Creates chart data for selected metal.
      *
-     * @param metal        the name of the metal (e.g., "Gold", "Palladium", "Platinum", "Silver")
-     * @param parsed       the list of parsed metal history entries
+     * @param name         the name of the metal (e.g., "Gold", "Palladium", "Platinum", "Silver")
+     * @param history      the metal history within the date range, with a column for each {@link Metal}
      * @param dataMap      the map to store the chart data
-     * @param start        the start timestamp for the data range
-     * @param end          the end timestamp for the data range
      * @param exchangeRate the exchange rate to convert the metal prices
+     * @param errors       the list to add a problem to if there is no data for the metal
      */
-    private static void addMetal(String metal, ArrayList<MetalHistoryEntryAll> parsed,
-            Map<String, List<XYChart.Data<Number, Number>>> dataMap, long start, long end, double exchangeRate) {
+    private static void addMetal(String name, TimeSeries history, Map<String, TimeSeries> dataMap,
+            double exchangeRate, List<ApiError> errors) {
 
-        List<XYChart.Data<Number, Number>> dataList = new ArrayList<>();
+        Metal metal = Metal.fromName(name);
 
-        for (MetalHistoryEntryAll entry : parsed) {
-            // Skip entries outside the selected date range
-            if (entry.getTimestamp() < start || entry.getTimestamp() > end) {
-                continue;
-            }
-            // Get the price for the selected metal
-            double price = switch (metal) {
-                case "Gold" -> entry.getMetalData().getGold();
-                case "Palladium" -> entry.getMetalData().getPalladium();
-                case "Platinum" -> entry.getMetalData().getPlatinum();
-                case "Silver" -> entry.getMetalData().getSilver();
-                default -> throw new IllegalArgumentException();
-            };
-
-            dataList.add(new XYChart.Data<>(entry.getTimestamp(), price / exchangeRate));
+        if (metal == null) {
+            errors.add(new ApiError(ApiError.Type.UNAVAILABLE, "No data available for " + name));
         }
-
-        if (dataList.isEmpty()) {
-            DialogUtils.showWarningDialog("Not Found", "No data found for selected interval for " + metal);
+        else if (history.isEmpty()) {
+            errors.add(new ApiError(ApiError.Type.NOT_FOUND, "No data found for selected interval for " + name));
         }
         else {
-            dataMap.put(metal, dataList);
+            // The column of the metal is read in a single pass, whatever the number of metals in the history
+            dataMap.put(name, history.map(metal.getColumn(), price -> price / exchangeRate));
         }
     }
 
     /**
-     * Get exchange rate for given currency. USD is the base currency.
+     * Shows the problems of the result to the user and returns its value. Must be called on the FX thread.
+     *
+     * @param result the result to report
+     * @param <T>    the type of the value
+     * @return the value of the result
+     */
+    public static <T> T report(ApiResult<T> result) {
+        for (ApiError error : result.getErrors()) {
+            if (error.getCause() instanceof Exception cause) {
+                DialogUtils.showErrorDialog(error.getMessage(), cause);
+            } else {
+                DialogUtils.showWarningDialog(error.getType().getTitle(), error.getMessage());
+            }
+        }
+
+        return result.getValue();
+    }
+
+    /**
+     * Get exchange rate for given currency without blocking. USD is the base currency.
+     *
+     * @param currency the currency code (e.g., "USD", "EUR")
+     * @return future completed with the exchange rate for the given currency, or with an error if not available
+     * @see #getExchangeRateAsync(String, Executor)
+     */
+    public static CompletableFuture<ApiResult<Double>> getExchangeRateAsync(String currency) {
+        return getExchangeRateAsync(currency, FETCH_EXECUTOR);
+    }
+
+    /**
+     * Get exchange rate for given currency without blocking. USD is the base currency. The returned future never
+     * completes exceptionally, problems are reported as errors of the result.
      *
      * @param currency the currency code (e.g., "USD", "EUR")
-     * @return the exchange rate for the given currency, or null if not available
+     * @param executor runs fetching and parsing the rates, which block on the network
+     * @return future completed with the exchange rate for the given currency, or with an error if not available
      */
-    private static Double getExchangeRate(String currency) {
+    public static CompletableFuture<ApiResult<Double>> getExchangeRateAsync(String currency, Executor executor) {
         if ("USD".equals(currency)) {
-            return 1D;
+            return CompletableFuture.completedFuture(ApiResult.success(1D));
         }
         // Fetch exchange rates from API and store them in cache if not already fetched
-        if (!EXCHANGE_RATE_CACHE.containsKey(currency)) {
-            try {
-                CachedResponse exchangeRatesResponse = CachedRequest.get(
-                        "https://api.metals.dev/v1/currencies?api_key=" + Constants.API_KEY_METALS + "&base=USD",
-                        12 * 60 * 60);
-
-                System.out.println((System.currentTimeMillis() - exchangeRatesResponse.getTime()) / 1000 +
-                        " seconds ago: " + exchangeRatesResponse.getResponse());
-
-                EXCHANGE_RATE_CACHE
-                        .putAll(Parser.parseExchangeRateData(exchangeRatesResponse.getResponse(), CURRENCIES));
-            } catch (Exception ex) {
-                DialogUtils.showErrorDialog("Failed to fetch currency exchange rates", ex);
-                return null;
+        return EXCHANGE_RATE_CACHE.get("USD", API::fetchExchangeRates, executor).handle((rates, ex) -> {
+            if (ex != null) {
+                return ApiResult.failure(null,
+                        new ApiError(ApiError.Type.FETCH_FAILED, "Failed to fetch currency exchange rates", ex));
             }
-        }
-        // Get exchange rate for the given currency
-        Double rate = EXCHANGE_RATE_CACHE.get(currency);
+            // Get exchange rate for the given currency
+            Double rate = rates.get(currency);
 
-        if (rate == null) {
-            DialogUtils.showWarningDialog("Failed", "Exchange rate for " + currency + " not available");
-        }
+            return rate != null ? ApiResult.success(rate) : ApiResult.failure(null,
+                    new ApiError(ApiError.Type.UNAVAILABLE, "Exchange rate for " + currency + " not available"));
+        });
+    }
 
-        return rate;
+    /**
+     * Fetches and parses the exchange rates of the available currencies.
+     *
+     * @return the parsed exchange rates related to USD
+     * @throws Exception if the rates couldn't be fetched or parsed
+     */
+    private static Map<String, Double> fetchExchangeRates() throws Exception {
+        CachedResponse exchangeRatesResponse = CachedRequest.get(
+                Constants.METALS_API_URL + "currencies?api_key=" + Constants.API_KEY_METALS + "&base=USD",
+                12 * 60 * 60, CachePolicy.STALE_IF_ERROR);
+
+        System.out.println((System.currentTimeMillis() - exchangeRatesResponse.getTime()) / 1000 +
+                " seconds ago: " + exchangeRatesResponse.getLength() + " bytes");
+
+        try (Reader reader = exchangeRatesResponse.openReader()) {
+            return Map.copyOf(Parser.parseExchangeRateData(reader, CURRENCIES));
+        }
     }
 }
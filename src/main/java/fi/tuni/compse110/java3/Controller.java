@@ -6,11 +6,16 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.controlsfx.control.CheckComboBox;
 
+import fi.tuni.compse110.java3.data.ApiResult;
+import fi.tuni.compse110.java3.data.CryptoChartData;
+import fi.tuni.compse110.java3.data.TimeSeries;
 import fi.tuni.compse110.java3.preference.Preferences;
 import fi.tuni.compse110.java3.preference.UserPreferenceManager;
 import fi.tuni.compse110.java3.utility.ChartBounds;
@@ -19,6 +24,7 @@ import fi.tuni.compse110.java3.utility.Constants;
 import fi.tuni.compse110.java3.utility.DialogUtils;
 import fi.tuni.compse110.java3.utility.DragResizer;
 import fi.tuni.compse110.java3.utility.NumberFormatter;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -31,7 +37,6 @@ import javafx.scene.Scene;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
@@ -161,6 +166,9 @@ public class Controller {
 
     private UserPreferenceManager preferenceManager;
 
+    // Incremented on every chart update, so that results of an older update are ignored
+    private int chartUpdate;
+
     private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
     /**
@@ -173,6 +181,9 @@ public class Controller {
 
         DragResizer.makeResizable(priceTable);
 
+        // Load the list of all cryptocurrencies for searching in the background
+        API.loadCryptoListAsync();
+
         // Populate the CheckComboBox with cryptocurrencies
         cryptoCheckComboBox.getItems().addAll(API.getAvailableCryptocurrencies());
 
@@ -552,28 +563,23 @@ public class Controller {
         stage.setScene(scene);
         DialogUtils.setStageIcon(stage);
 
-        // Listen for searchTextField edit
-        searchTextField.textProperty().addListener((observable, oldValue, newValue) -> {
-            String search = newValue.trim().toLowerCase();
+        // Show loading state until the list of all cryptocurrencies is available
+        if (!API.isCryptoListLoaded()) {
+            searchResultsListView.setPlaceholder(new Label("Loading cryptocurrencies..."));
+        }
 
-            if (search.isEmpty()) {
-                searchResultsListView.getItems().setAll(Collections.emptyList());
+        API.loadCryptoListAsync().whenComplete((coins, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                searchResultsListView.setPlaceholder(new Label("Failed to load cryptocurrencies"));
                 return;
             }
+            searchResultsListView.setPlaceholder(null);
+            updateSearchResults(searchResultsListView, searchTextField.getText());
+        }));
 
-            // Get all available cryptocurrencies
-            List<String> available = API.getAllAvailableCryptocurrencies();
-            List<String> results = new ArrayList<>();
-
-            // Filter the shown cryptocurrencies based on the search string
-            for (String crypto : available) {
-                if (crypto.toLowerCase().startsWith(search)) {
-                    results.add(crypto);
-                }
-            }
-
-            searchResultsListView.getItems().setAll(results);
-        });
+        // Listen for searchTextField edit
+        searchTextField.textProperty().addListener(
+                (observable, oldValue, newValue) -> updateSearchResults(searchResultsListView, newValue));
 
         // Listen for searchResultsListView click
         searchResultsListView.getSelectionModel().selectedItemProperty()
@@ -607,6 +613,34 @@ public class Controller {
         searchTextField.requestFocus();
     }
 
+    /**
+     * Show the cryptocurrencies whose name starts with the search string.
+     *
+     * @param searchResultsListView the list to show the results in
+     * @param text                  the search string
+     */
+    private void updateSearchResults(ListView<String> searchResultsListView, String text) {
+        String search = text.trim().toLowerCase();
+
+        if (search.isEmpty()) {
+            searchResultsListView.getItems().setAll(Collections.emptyList());
+            return;
+        }
+
+        // Get all available cryptocurrencies, empty while still loading
+        List<String> available = API.getAllAvailableCryptocurrencies();
+        List<String> results = new ArrayList<>();
+
+        // Filter the shown cryptocurrencies based on the search string
+        for (String crypto : available) {
+            if (crypto.toLowerCase().startsWith(search)) {
+                results.add(crypto);
+            }
+        }
+
+        searchResultsListView.getItems().setAll(results);
+    }
+
     /**
      * Reset the table to its original state.
      */
@@ -720,29 +754,56 @@ public class Controller {
         // Set visibility of labelMetalUnit based on whether metals are included
         labelMetalUnit.setVisible(!selectedMetals.isEmpty() && comparisonType.equals("Price"));
 
+        int update = ++chartUpdate;
+
         if (selectedCurrencies.isEmpty() && selectedMetals.isEmpty()) {
             return; // Nothing selected
         }
 
-        Map<String, List<XYChart.Data<Number, Number>>> cryptoPrices = API.getCryptos(selectedCurrencies, startDate,
-                endDate, exchangeCurrency, comparisonType.equals("Volume"));
+        // Prices, volumes and total volumes of the cryptos in one pass for both the line and the pie chart
+        CompletableFuture<ApiResult<Map<String, CryptoChartData>>> cryptoFuture = API.getCryptoChartDataAsync(
+                selectedCurrencies, startDate, endDate, exchangeCurrency);
+        CompletableFuture<ApiResult<Map<String, TimeSeries>>> metalFuture = API.getMetalsAsync(selectedMetals,
+                startDate, endDate, exchangeCurrency);
 
-        Map<String, List<XYChart.Data<Number, Number>>> metalPrices = API.getMetals(selectedMetals, startDate, endDate,
-                exchangeCurrency);
+        // Fetched in the background, the charts are populated on the FX thread once both are available
+        cryptoFuture.thenAcceptBoth(metalFuture, (cryptoResult, metalResult) -> Platform.runLater(() -> {
+            if (update != chartUpdate) {
+                return; // A newer update has been started
+            }
+            populateCharts(API.report(cryptoResult), API.report(metalResult), comparisonType, tooltipLabel,
+                    startDate, endDate);
+        }));
+    }
+
+    /**
+     * Populates the charts and the table with fetched data.
+     *
+     * @param cryptoData     the chart data of each crypto found
+     * @param metalPrices    the price series of each metal found
+     * @param comparisonType the selected comparison type
+     * @param tooltipLabel   the label of the values in tooltips
+     * @param startDate      the start of the date range
+     * @param endDate        the end of the date range
+     */
+    private void populateCharts(Map<String, CryptoChartData> cryptoData, Map<String, TimeSeries> metalPrices,
+            String comparisonType, String tooltipLabel, LocalDate startDate, LocalDate endDate) {
+        Map<String, TimeSeries> cryptoPrices = new LinkedHashMap<>();
+        for (Map.Entry<String, CryptoChartData> entry : cryptoData.entrySet()) {
+            cryptoPrices.put(entry.getKey(), comparisonType.equals("Volume") ? entry.getValue().getVolumes()
+                    : entry.getValue().getPrices());
+        }
 
         // In case data was not found for some crypto
-        selectedCurrencies = new ArrayList<>(cryptoPrices.keySet());
-        selectedMetals = new ArrayList<>(metalPrices.keySet());
+        List<String> selectedCurrencies = new ArrayList<>(cryptoPrices.keySet());
+        List<String> selectedMetals = new ArrayList<>(metalPrices.keySet());
 
         if (selectedCurrencies.isEmpty() && selectedMetals.isEmpty()) {
             return; // Nothing selected
         }
 
-        Map<String, List<XYChart.Data<Number, Number>>> cryptoVolumes = API.getCryptos(selectedCurrencies, startDate,
-                endDate, exchangeCurrency, true);
-
         // If %-change is selected, calculate the percentage change and keep the original data for pie chart
-        Map<String, List<XYChart.Data<Number, Number>>> cryptoPricesMod = comparisonType.equals("%-Change")
+        Map<String, TimeSeries> cryptoPricesMod = comparisonType.equals("%-Change")
                 ? ChartUtils.calculatePercentChange(cryptoPrices)
                 : cryptoPrices;
 
@@ -758,7 +819,7 @@ public class Controller {
                 lineChart);
 
         // Populate pie chart with volume data for cryptocurrencies
-        ChartUtils.populatePieChart(cryptoVolumes, selectedCurrencies, pieChart);
+        ChartUtils.populatePieChart(cryptoData, selectedCurrencies, pieChart);
 
         chartBounds = new ChartBounds(lineChart, plotArea);
 
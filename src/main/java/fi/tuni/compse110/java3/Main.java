@@ -3,6 +3,9 @@ package fi.tuni.compse110.java3;
 import java.io.IOException;
 
 import atlantafx.base.theme.NordDark;
+import fi.tuni.compse110.java3.io.CachedRequest;
+import fi.tuni.compse110.java3.io.DiskIO;
+import fi.tuni.compse110.java3.io.HttpClientPool;
 import fi.tuni.compse110.java3.utility.DialogUtils;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -46,4 +49,14 @@ public class Main extends Application {
         DialogUtils.setStageIcon(stage);
         stage.show();
     }
+
+    /**
+     * Releases shared resources when the application is closed.
+     */
+    @Override
+    public void stop() {
+        CachedRequest.shutdown();
+        HttpClientPool.shutdown();
+        DiskIO.flush();
+    }
 }
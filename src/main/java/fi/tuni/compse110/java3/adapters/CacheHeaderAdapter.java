@@ -0,0 +1,90 @@
+package fi.tuni.compse110.java3.adapters;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import fi.tuni.compse110.java3.io.CacheHeader;
+
+/**
+ * Gson type adapter for CacheHeader.
+ */
+public class CacheHeaderAdapter extends TypeAdapter<CacheHeader> {
+
+    /**
+     * Writes a CacheHeader object to JSON format.
+     *
+     * @param out    the JsonWriter to write the JSON data to
+     * @param header the CacheHeader object to be written to JSON
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(JsonWriter out, CacheHeader header) throws IOException {
+        out.beginObject();
+        out.name("url").value(header.getUrl());
+        out.name("time").value(header.getTime());
+        out.name("ttl").value(header.getTtl());
+        out.name("length").value(header.getLength());
+        out.name("checksum").value(header.getChecksum());
+        out.name("encoding").value(header.getEncoding());
+        out.name("storedLength").value(header.getStoredLength());
+        out.name("etag").value(header.getEtag());
+        out.name("lastModified").value(header.getLastModified());
+        out.endObject();
+    }
+
+    /**
+     * Reads a CacheHeader object from JSON format.
+     *
+     * @param in the JsonReader to read the JSON data from
+     * @return the CacheHeader object read from JSON
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public CacheHeader read(JsonReader in) throws IOException {
+        String url = null;
+        long time = 0;
+        long ttl = 0;
+        long length = -1;
+        long checksum = 0;
+        String encoding = null;
+        long storedLength = -1;
+        String etag = null;
+        String lastModified = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "url" -> url = in.nextString();
+                case "time" -> time = in.nextLong();
+                case "ttl" -> ttl = in.nextLong();
+                case "length" -> length = in.nextLong();
+                case "checksum" -> checksum = in.nextLong();
+                case "encoding" -> encoding = in.nextString();
+                case "storedLength" -> storedLength = in.nextLong();
+                case "etag" -> etag = in.nextString();
+                case "lastModified" -> lastModified = in.nextString();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        // Uncompressed bodies may leave out the stored length
+        if (storedLength < 0 && encoding == null) {
+            storedLength = length;
+        }
+
+        // Missing values are checked for in CachedRequest
+        return new CacheHeader(url, time, ttl, length, checksum, encoding, storedLength, etag, lastModified);
+    }
+}
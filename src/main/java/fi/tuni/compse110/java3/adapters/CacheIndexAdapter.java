@@ -0,0 +1,132 @@
+package fi.tuni.compse110.java3.adapters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import fi.tuni.compse110.java3.io.CacheIndex;
+import fi.tuni.compse110.java3.io.CacheIndexEntry;
+
+/**
+ * Gson type adapter for CacheIndex.
+ */
+public class CacheIndexAdapter extends TypeAdapter<CacheIndex> {
+
+    /**
+     * Writes a CacheIndex object to JSON format.
+     *
+     * @param out   the JsonWriter to write the JSON data to
+     * @param index the CacheIndex object to be written to JSON
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(JsonWriter out, CacheIndex index) throws IOException {
+        out.beginObject();
+        out.name("entries");
+        out.beginArray();
+        for (CacheIndexEntry entry : index.getEntries()) {
+            out.beginObject();
+            out.name("key").value(entry.getKey());
+            out.name("url").value(entry.getUrl());
+            out.name("endpoint").value(entry.getEndpoint());
+            out.name("asset").value(entry.getAsset());
+            out.name("startDate").value(entry.getStartDate());
+            out.name("endDate").value(entry.getEndDate());
+            out.name("size").value(entry.getSize());
+            out.name("time").value(entry.getTime());
+            out.name("ttl").value(entry.getTtl());
+            out.name("lastAccess").value(entry.getLastAccess());
+            out.name("accessCount").value(entry.getAccessCount());
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    /**
+     * Reads a CacheIndex object from JSON format.
+     *
+     * @param in the JsonReader to read the JSON data from
+     * @return the CacheIndex object read from JSON
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public CacheIndex read(JsonReader in) throws IOException {
+        List<CacheIndexEntry> entries = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("entries")) {
+                in.skipValue();
+                continue;
+            }
+
+            in.beginArray();
+            while (in.hasNext()) {
+                entries.add(readEntry(in));
+            }
+            in.endArray();
+        }
+        in.endObject();
+
+        // Entries without a key can't be looked up
+        entries.removeIf(entry -> entry.getKey() == null);
+
+        return new CacheIndex(entries);
+    }
+
+    /**
+     * Reads a single CacheIndexEntry from JSON format.
+     *
+     * @param in the JsonReader to read the JSON data from
+     * @return the CacheIndexEntry read from JSON
+     * @throws IOException if an I/O error occurs
+     */
+    private static CacheIndexEntry readEntry(JsonReader in) throws IOException {
+        String key = null;
+        String url = null;
+        String endpoint = null;
+        String asset = null;
+        String startDate = null;
+        String endDate = null;
+        long size = 0;
+        long time = 0;
+        long ttl = 0;
+        long lastAccess = 0;
+        int accessCount = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "key" -> key = in.nextString();
+                case "url" -> url = in.nextString();
+                case "endpoint" -> endpoint = in.nextString();
+                case "asset" -> asset = in.nextString();
+                case "startDate" -> startDate = in.nextString();
+                case "endDate" -> endDate = in.nextString();
+                case "size" -> size = in.nextLong();
+                case "time" -> time = in.nextLong();
+                case "ttl" -> ttl = in.nextLong();
+                case "lastAccess" -> lastAccess = in.nextLong();
+                case "accessCount" -> accessCount = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new CacheIndexEntry(key, url, endpoint, asset, startDate, endDate, size, time, ttl, lastAccess,
+                accessCount);
+    }
+}
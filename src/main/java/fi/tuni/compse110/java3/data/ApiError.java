@@ -0,0 +1,107 @@
+package fi.tuni.compse110.java3.data;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A problem encountered while getting data from the APIs, reported to the caller instead of shown to the user.
+ */
+public class ApiError {
+
+    /**
+     * Kind of the problem.
+     */
+    public enum Type {
+        /**
+         * Data couldn't be fetched or parsed.
+         */
+        FETCH_FAILED("Error"),
+        /**
+         * Data was fetched but there was none for the selected interval.
+         */
+        NOT_FOUND("Not Found"),
+        /**
+         * The API doesn't provide the requested value.
+         */
+        UNAVAILABLE("Failed");
+
+        private final String title;
+
+        Type(String title) {
+            this.title = title;
+        }
+
+        /**
+         * Returns a short title describing the problem, e.g. for a dialog.
+         *
+         * @return the title
+         */
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private final Type type;
+    private final String message;
+    private final Throwable cause;
+
+    /**
+     * Constructs a new ApiError without an underlying exception.
+     *
+     * @param type    the kind of the problem
+     * @param message description of the problem
+     */
+    public ApiError(Type type, String message) {
+        this(type, message, null);
+    }
+
+    /**
+     * Constructs a new ApiError. CompletionException and ExecutionException wrappers are removed from the cause.
+     *
+     * @param type    the kind of the problem
+     * @param message description of the problem
+     * @param cause   the exception that caused the problem, or null
+     */
+    public ApiError(Type type, String message, Throwable cause) {
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        this.type = type;
+        this.message = message;
+        this.cause = cause;
+    }
+
+    /**
+     * Returns the kind of the problem.
+     *
+     * @return the error type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the description of the problem.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the exception that caused the problem.
+     *
+     * @return the cause, or null if there is none
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + message + (cause == null ? "" : " (" + cause + ")");
+    }
+}
@@ -0,0 +1,76 @@
+package fi.tuni.compse110.java3.data;
+
+import java.util.List;
+
+/**
+ * Result of getting data from the APIs. A result may have both a value and errors, e.g. when data was found for
+ * only some of the selected assets.
+ *
+ * @param <T> the type of the value
+ */
+public class ApiResult<T> {
+
+    private final T value;
+    private final List<ApiError> errors;
+
+    /**
+     * Constructs a new ApiResult.
+     *
+     * @param value  the value, or null if there is none
+     * @param errors the problems encountered while getting the value
+     */
+    public ApiResult(T value, List<ApiError> errors) {
+        this.value = value;
+        this.errors = List.copyOf(errors);
+    }
+
+    /**
+     * Returns a result with the value and no errors.
+     *
+     * @param value the value
+     * @param <T>   the type of the value
+     * @return the successful result
+     */
+    public static <T> ApiResult<T> success(T value) {
+        return new ApiResult<>(value, List.of());
+    }
+
+    /**
+     * Returns a result with the fallback value and a single error.
+     *
+     * @param value the fallback value, or null
+     * @param error the problem
+     * @param <T>   the type of the value
+     * @return the failed result
+     */
+    public static <T> ApiResult<T> failure(T value, ApiError error) {
+        return new ApiResult<>(value, List.of(error));
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @return the value, or null if there is none
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the problems encountered while getting the value.
+     *
+     * @return unmodifiable list of errors, empty if there were none
+     */
+    public List<ApiError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns whether the value was got without any problems.
+     *
+     * @return true if there are no errors
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
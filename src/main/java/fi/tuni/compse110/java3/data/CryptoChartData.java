@@ -0,0 +1,62 @@
+package fi.tuni.compse110.java3.data;
+
+/**
+ * Chart data of a single cryptocurrency for a date range. The volumes and market caps are views of the cached
+ * history, only the prices converted to the exchange currency are a copy.
+ */
+public class CryptoChartData {
+
+    private final TimeSeries prices;
+    private final TimeSeries volumes;
+    private final TimeSeries marketCaps;
+    private final double totalVolume;
+
+    /**
+     * Constructs a new CryptoChartData from the history of the date range.
+     *
+     * @param history      the history with the columns of {@link CryptoField}
+     * @param exchangeRate the exchange rate to convert the prices
+     */
+    public CryptoChartData(TimeSeries history, double exchangeRate) {
+        this.prices = history.map(CryptoField.PRICE.getColumn(), price -> price / exchangeRate);
+        this.volumes = history.column(CryptoField.VOLUME.getColumn());
+        this.marketCaps = history.column(CryptoField.MARKET_CAP.getColumn());
+        this.totalVolume = history.sum(CryptoField.VOLUME.getColumn());
+    }
+
+    /**
+     * Returns the prices.
+     *
+     * @return single column series of prices in the exchange currency
+     */
+    public TimeSeries getPrices() {
+        return prices;
+    }
+
+    /**
+     * Returns the volumes.
+     *
+     * @return single column series of volumes in USD
+     */
+    public TimeSeries getVolumes() {
+        return volumes;
+    }
+
+    /**
+     * Returns the market caps.
+     *
+     * @return single column series of market caps in USD
+     */
+    public TimeSeries getMarketCaps() {
+        return marketCaps;
+    }
+
+    /**
+     * Returns the total volume over the date range.
+     *
+     * @return the sum of the volumes
+     */
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+}
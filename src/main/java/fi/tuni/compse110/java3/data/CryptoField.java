@@ -0,0 +1,28 @@
+package fi.tuni.compse110.java3.data;
+
+/**
+ * Columns of a cryptocurrency history {@link TimeSeries}.
+ */
+public enum CryptoField {
+    /**
+     * Price in USD.
+     */
+    PRICE,
+    /**
+     * Total traded volume in USD.
+     */
+    VOLUME,
+    /**
+     * Market cap in USD.
+     */
+    MARKET_CAP;
+
+    /**
+     * Returns the index of the column in the series.
+     *
+     * @return the column index
+     */
+    public int getColumn() {
+        return ordinal();
+    }
+}
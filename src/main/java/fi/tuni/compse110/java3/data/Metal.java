@@ -0,0 +1,84 @@
+package fi.tuni.compse110.java3.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metals provided by metals.dev, also the columns of a metal history {@link TimeSeries}.
+ */
+public enum Metal {
+    GOLD("Gold", "gold"),
+    SILVER("Silver", "silver"),
+    PLATINUM("Platinum", "platinum"),
+    PALLADIUM("Palladium", "palladium"),
+    COPPER("Copper", "copper"),
+    ALUMINUM("Aluminum", "aluminum"),
+    LEAD("Lead", "lead"),
+    NICKEL("Nickel", "nickel"),
+    ZINC("Zinc", "zinc");
+
+    private static final Map<String, Metal> BY_NAME = new HashMap<>();
+    private static final Map<String, Metal> BY_KEY = new HashMap<>();
+
+    static {
+        for (Metal metal : values()) {
+            BY_NAME.put(metal.name, metal);
+            BY_KEY.put(metal.key, metal);
+        }
+    }
+
+    private final String name;
+    private final String key;
+
+    Metal(String name, String key) {
+        this.name = name;
+        this.key = key;
+    }
+
+    /**
+     * Returns the name of the metal shown to the user.
+     *
+     * @return the display name, e.g. "Gold"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the key of the metal in metals.dev responses.
+     *
+     * @return the JSON key, e.g. "gold"
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the index of the column in the series.
+     *
+     * @return the column index
+     */
+    public int getColumn() {
+        return ordinal();
+    }
+
+    /**
+     * Returns the metal with the given display name.
+     *
+     * @param name the display name, e.g. "Gold"
+     * @return the metal, or null if there is no such metal
+     */
+    public static Metal fromName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Returns the metal with the given key in metals.dev responses.
+     *
+     * @param key the JSON key, e.g. "gold"
+     * @return the metal, or null if there is no such metal
+     */
+    public static Metal fromKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
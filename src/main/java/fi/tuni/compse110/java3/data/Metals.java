@@ -1,48 +0,0 @@
-package fi.tuni.compse110.java3.data;
-
-/**
- * Represents the data for gold, palladium, platinum, and silver.
- */
-public class Metals {
-
-    private double gold;
-    private double palladium;
-    private double platinum;
-    private double silver;
-
-    /**
-     * Returns the data for gold.
-     *
-     * @return the data for gold
-     */
-    public double getGold() {
-        return gold;
-    }
-
-    /**
-     * Returns the data for palladium.
-     *
-     * @return the data for palladium
-     */
-    public double getPalladium() {
-        return palladium;
-    }
-
-    /**
-     * Returns the data for platinum.
-     *
-     * @return the data for platinum
-     */
-    public double getPlatinum() {
-        return platinum;
-    }
-
-    /**
-     * Returns the data for silver.
-     *
-     * @return the data for silver
-     */
-    public double getSilver() {
-        return silver;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,436 @@
+package fi.tuni.compse110.java3.data;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable time series stored in columns: a sorted array of timestamps and a parallel array of values for each
+ * column, e.g. price, volume and market cap. Compared to a list of entry objects this takes a fraction of the heap
+ * and has no per-point object overhead.
+ * <p>
+ * Range and column views share the arrays of the series they are taken from, so taking them doesn't copy any data.
+ * The arrays are never modified once a series has been constructed.
+ */
+public class TimeSeries {
+
+    private final long[] timestamps;
+    private final double[][] columns;
+    private final int offset;
+    private final int size;
+
+    /**
+     * Constructs a new TimeSeries over the given arrays, which must not be modified afterwards.
+     *
+     * @param timestamps timestamps in milliseconds since epoch, in ascending order
+     * @param columns    values of each column, as long as the timestamps
+     * @throws IllegalArgumentException if the timestamps aren't sorted or a column has a different length
+     */
+    public TimeSeries(long[] timestamps, double[]... columns) {
+        for (double[] column : columns) {
+            if (column.length != timestamps.length) {
+                throw new IllegalArgumentException("Columns must be as long as the timestamps");
+            }
+        }
+        for (int i = 1; i < timestamps.length; i++) {
+            if (timestamps[i] < timestamps[i - 1]) {
+                throw new IllegalArgumentException("Timestamps must be in ascending order");
+            }
+        }
+
+        this.timestamps = timestamps;
+        this.columns = columns;
+        this.offset = 0;
+        this.size = timestamps.length;
+    }
+
+    /**
+     * Constructs a view of the arrays.
+     *
+     * @param timestamps the shared timestamps
+     * @param columns    the shared columns
+     * @param offset     index of the first point of the view in the arrays
+     * @param size       number of points in the view
+     */
+    private TimeSeries(long[] timestamps, double[][] columns, int offset, int size) {
+        this.timestamps = timestamps;
+        this.columns = columns;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of points in the series.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the series has no points.
+     *
+     * @return true if the series is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of value columns.
+     *
+     * @return the column count
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Returns the timestamp of a point.
+     *
+     * @param index index of the point in this series
+     * @return the timestamp in milliseconds since epoch
+     */
+    public long getTimestamp(int index) {
+        return timestamps[offset + checkIndex(index)];
+    }
+
+    /**
+     * Returns a value of a point.
+     *
+     * @param column the column
+     * @param index  index of the point in this series
+     * @return the value
+     */
+    public double getValue(int column, int index) {
+        return columns[column][offset + checkIndex(index)];
+    }
+
+    /**
+     * Returns a view of the points from index {@code from} (inclusive) to {@code to} (exclusive) without copying.
+     *
+     * @param from index of the first point
+     * @param to   index after the last point
+     * @return the range view
+     * @throws IndexOutOfBoundsException if the range is outside this series
+     */
+    public TimeSeries range(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range " + from + ".." + to + " of " + size);
+        }
+        return new TimeSeries(timestamps, columns, offset + from, to - from);
+    }
+
+    /**
+     * Returns a view of the points from {@code start} to {@code end}, both inclusive, without copying. The bounds
+     * are found with binary search, so this takes logarithmic time regardless of the size of the range.
+     *
+     * @param start the first timestamp in milliseconds since epoch
+     * @param end   the last timestamp in milliseconds since epoch
+     * @return the range view, empty if no point is within the timestamps
+     */
+    public TimeSeries between(long start, long end) {
+        int from = lowerBound(start);
+        int to = Math.max(from, upperBound(end));
+        return new TimeSeries(timestamps, columns, offset + from, to - from);
+    }
+
+    /**
+     * Returns the index of the first point at or after the timestamp.
+     *
+     * @param timestamp the timestamp in milliseconds since epoch
+     * @return the index, or the size of the series if every point is before the timestamp
+     */
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[offset + middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the first point after the timestamp.
+     *
+     * @param timestamp the timestamp in milliseconds since epoch
+     * @return the index, or the size of the series if no point is after the timestamp
+     */
+    public int upperBound(long timestamp) {
+        return timestamp == Long.MAX_VALUE ? size : lowerBound(timestamp + 1);
+    }
+
+    /**
+     * Returns a view of a single column without copying.
+     *
+     * @param column the column
+     * @return series with the column as its only column
+     */
+    public TimeSeries column(int column) {
+        return new TimeSeries(timestamps, new double[][] { columns[column] }, offset, size);
+    }
+
+    /**
+     * Returns a new single column series with the values of a column passed through the function.
+     *
+     * @param column   the column
+     * @param function computes the new value from the old one
+     * @return the new series
+     */
+    public TimeSeries map(int column, DoubleUnaryOperator function) {
+        double[] values = new double[size];
+        double[] source = columns[column];
+
+        for (int i = 0; i < size; i++) {
+            values[i] = function.applyAsDouble(source[offset + i]);
+        }
+
+        return new TimeSeries(copyTimestamps(), values);
+    }
+
+    /**
+     * Returns the sum of the values of a column.
+     *
+     * @param column the column
+     * @return the sum
+     */
+    public double sum(int column) {
+        double[] source = columns[column];
+        double sum = 0;
+
+        for (int i = offset; i < offset + size; i++) {
+            sum += source[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Returns a new series with the points of the other series added after the points of this one. Falls back to
+     * {@link #merge(TimeSeries)} if the other series doesn't start after this one ends.
+     *
+     * @param other series with the same columns
+     * @return the combined series
+     * @throws IllegalArgumentException if the series have different column counts
+     */
+    public TimeSeries append(TimeSeries other) {
+        checkColumns(other);
+
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.getTimestamp(0) <= getTimestamp(size - 1)) {
+            return merge(other);
+        }
+
+        long[] newTimestamps = Arrays.copyOf(copyTimestamps(), size + other.size);
+        System.arraycopy(other.timestamps, other.offset, newTimestamps, size, other.size);
+
+        double[][] newColumns = new double[columns.length][];
+        for (int column = 0; column < columns.length; column++) {
+            newColumns[column] = new double[size + other.size];
+            System.arraycopy(columns[column], offset, newColumns[column], 0, size);
+            System.arraycopy(other.columns[column], other.offset, newColumns[column], size, other.size);
+        }
+
+        return new TimeSeries(newTimestamps, newColumns);
+    }
+
+    /**
+     * Returns a new series with the points of both series in timestamp order. Where both have a point with the
+     * same timestamp, the point of the other series replaces the one of this series.
+     *
+     * @param other series with the same columns
+     * @return the merged series
+     * @throws IllegalArgumentException if the series have different column counts
+     */
+    public TimeSeries merge(TimeSeries other) {
+        checkColumns(other);
+
+        TimeSeriesBuilder builder = new TimeSeriesBuilder(columns.length, size + other.size);
+        int i = 0;
+        int j = 0;
+
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && getTimestamp(i) < other.getTimestamp(j))) {
+                builder.append(this, i++);
+            } else {
+                // Points of the other series replace points of this one with the same timestamp
+                long timestamp = other.getTimestamp(j);
+                while (i < size && getTimestamp(i) == timestamp) {
+                    i++;
+                }
+                builder.append(other, j++);
+            }
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeries[" + size + " points, " + columns.length + " columns]";
+    }
+
+    /**
+     * Returns the timestamps of this view in a new array.
+     *
+     * @return the copied timestamps
+     */
+    private long[] copyTimestamps() {
+        return Arrays.copyOfRange(timestamps, offset, offset + size);
+    }
+
+    /**
+     * Checks that the index is within this series.
+     *
+     * @param index the index
+     * @return the index
+     */
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        return index;
+    }
+
+    /**
+     * Checks that the other series has the same number of columns.
+     *
+     * @param other the other series
+     */
+    private void checkColumns(TimeSeries other) {
+        if (other.columns.length != columns.length) {
+            throw new IllegalArgumentException("Series have different columns");
+        }
+    }
+
+    /**
+     * Returns a new TimeSeriesBuilder instance.
+     *
+     * @param columnCount number of value columns
+     * @return a new TimeSeriesBuilder instance
+     */
+    public static TimeSeriesBuilder builder(int columnCount) {
+        return new TimeSeriesBuilder(columnCount, 16);
+    }
+
+    /**
+     * Builder class for TimeSeries. Points are appended one at a time into growing primitive arrays and may be
+     * appended out of order, in which case they are sorted when the series is built.
+     */
+    public static class TimeSeriesBuilder {
+
+        private long[] timestamps;
+        private final double[][] columns;
+        private int size;
+        private boolean sorted = true;
+
+        /**
+         * Constructs a new TimeSeriesBuilder.
+         *
+         * @param columnCount number of value columns
+         * @param capacity    initial number of points
+         */
+        private TimeSeriesBuilder(int columnCount, int capacity) {
+            timestamps = new long[Math.max(capacity, 1)];
+            columns = new double[columnCount][timestamps.length];
+        }
+
+        /**
+         * Appends a point.
+         *
+         * @param timestamp the timestamp in milliseconds since epoch
+         * @param values    a value for each column
+         * @return the current TimeSeriesBuilder instance
+         * @throws IllegalArgumentException if the number of values doesn't match the columns
+         */
+        public TimeSeriesBuilder append(long timestamp, double... values) {
+            if (values.length != columns.length) {
+                throw new IllegalArgumentException("Expected " + columns.length + " values");
+            }
+
+            ensureCapacity();
+            sorted &= size == 0 || timestamps[size - 1] <= timestamp;
+            timestamps[size] = timestamp;
+            for (int column = 0; column < columns.length; column++) {
+                columns[column][size] = values[column];
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends a point of another series with the same columns.
+         *
+         * @param series the series
+         * @param index  index of the point in the series
+         */
+        private void append(TimeSeries series, int index) {
+            ensureCapacity();
+            long timestamp = series.getTimestamp(index);
+            sorted &= size == 0 || timestamps[size - 1] <= timestamp;
+            timestamps[size] = timestamp;
+            for (int column = 0; column < columns.length; column++) {
+                columns[column][size] = series.getValue(column, index);
+            }
+            size++;
+        }
+
+        /**
+         * Builds and returns a TimeSeries object.
+         *
+         * @return a new TimeSeries object
+         */
+        public TimeSeries build() {
+            if (sorted) {
+                double[][] trimmed = new double[columns.length][];
+                for (int column = 0; column < columns.length; column++) {
+                    trimmed[column] = Arrays.copyOf(columns[column], size);
+                }
+                return new TimeSeries(Arrays.copyOf(timestamps, size), trimmed);
+            }
+
+            // Stable sort so that points with the same timestamp stay in the order they were appended
+            int[] order = IntStream.range(0, size).boxed()
+                    .sorted(Comparator.comparingLong(i -> timestamps[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            long[] sortedTimestamps = new long[size];
+            double[][] sortedColumns = new double[columns.length][size];
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                for (int column = 0; column < columns.length; column++) {
+                    sortedColumns[column][i] = columns[column][order[i]];
+                }
+            }
+            return new TimeSeries(sortedTimestamps, sortedColumns);
+        }
+
+        /**
+         * Grows the arrays if they are full.
+         */
+        private void ensureCapacity() {
+            if (size == timestamps.length) {
+                int capacity = timestamps.length * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                for (int column = 0; column < columns.length; column++) {
+                    columns[column] = Arrays.copyOf(columns[column], capacity);
+                }
+            }
+        }
+    }
+}
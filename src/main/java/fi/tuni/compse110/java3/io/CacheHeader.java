@@ -0,0 +1,168 @@
+package fi.tuni.compse110.java3.io;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import fi.tuni.compse110.java3.adapters.CacheHeaderAdapter;
+
+/**
+ * Small metadata header stored next to a cached response body. Lets the cache check expiry and validity
+ * without reading the body.
+ */
+public class CacheHeader extends GsonSerializable {
+
+    /**
+     * Encoding of gzip compressed body files.
+     */
+    public static final String GZIP = "gzip";
+
+    private String url;
+    private long time;
+    private long ttl;
+    private long length;
+    private long checksum;
+    private String encoding;
+    private long storedLength;
+    private String etag;
+    private String lastModified;
+
+    /**
+     * Default constructor for GsonSerializable.
+     */
+    @SuppressWarnings("unused")
+    private CacheHeader() {
+        // For GsonSerializable, accessible only through reflection
+    }
+
+    /**
+     * Constructs a new CacheHeader.
+     *
+     * @param url          the API url of the cached response
+     * @param time         the time when the original request was made
+     * @param ttl          how many seconds the response was allowed to be cached when it was written
+     * @param length       the length of the uncompressed body in bytes
+     * @param checksum     the CRC32 checksum of the body
+     * @param encoding     how the body file is compressed, {@link #GZIP} or null if not compressed
+     * @param storedLength the size of the body file in bytes
+     * @param etag         the ETag response header or null
+     * @param lastModified the Last-Modified response header or null
+     */
+    public CacheHeader(String url, long time, long ttl, long length, long checksum, String encoding,
+            long storedLength, String etag, String lastModified) {
+        this.url = url;
+        this.time = time;
+        this.ttl = ttl;
+        this.length = length;
+        this.checksum = checksum;
+        this.encoding = encoding;
+        this.storedLength = storedLength;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the API url of the cached response.
+     *
+     * @return the API url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the time when the original request was made.
+     *
+     * @return the time when the original request was made
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns how many seconds the response was allowed to be cached when it was written.
+     *
+     * @return the time to live in seconds
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Returns the length of the uncompressed body.
+     *
+     * @return the length of the body in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns how the body file is compressed.
+     *
+     * @return {@link #GZIP} or null if the body is stored as is
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the size of the body file.
+     *
+     * @return the size of the body file in bytes
+     */
+    public long getStoredLength() {
+        return storedLength;
+    }
+
+    /**
+     * Returns the CRC32 checksum of the uncompressed body.
+     *
+     * @return the checksum of the body
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Returns the ETag the API sent with the response, used to revalidate the response.
+     *
+     * @return the ETag or null
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Returns the Last-Modified date the API sent with the response, used to revalidate the response.
+     *
+     * @return the Last-Modified date or null
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns a copy of this header with a new request time and time to live. Used when the API confirms that the
+     * cached body is still up to date.
+     *
+     * @param newTime the time of the revalidating request
+     * @param newTtl  how many seconds the response can be cached
+     * @return the refreshed header
+     */
+    public CacheHeader refreshed(long newTime, long newTtl) {
+        return new CacheHeader(url, newTime, newTtl, length, checksum, encoding, storedLength, etag, lastModified);
+    }
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(CacheHeader.class, new CacheHeaderAdapter()).create();
+
+    /**
+     * Returns the Gson instance configured for this class.
+     *
+     * @return the Gson instance
+     */
+    @Override
+    public Gson getGson() {
+        return GSON;
+    }
+}
@@ -0,0 +1,255 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import fi.tuni.compse110.java3.adapters.CacheIndexAdapter;
+
+/**
+ * Lists the entries of the response cache by cache key. Loaded once at startup so that lookups don't need to probe
+ * the filesystem.
+ */
+public class CacheIndex extends GsonSerializable {
+
+    /**
+     * File name of the index inside the cache directory.
+     */
+    public static final String INDEX_FILENAME = "index.json";
+
+    /**
+     * Suffix of the cache file holding the response header.
+     */
+    public static final String HEADER_SUFFIX = ".meta";
+
+    /**
+     * Suffix of the cache file holding the response body.
+     */
+    public static final String BODY_SUFFIX = ".body";
+
+    /**
+     * Subdirectory of the cache directory holding the entry lock files.
+     */
+    public static final String LOCK_DIRECTORY = "locks/";
+
+    private final Map<String, CacheIndexEntry> entries = new ConcurrentHashMap<>();
+
+    private String directory;
+
+    private volatile boolean dirty;
+
+    /**
+     * Default constructor for GsonSerializable.
+     */
+    @SuppressWarnings("unused")
+    private CacheIndex() {
+        // For GsonSerializable, accessible only through reflection
+    }
+
+    /**
+     * Constructs a new CacheIndex with the given entries.
+     *
+     * @param entries the index entries
+     */
+    public CacheIndex(Collection<CacheIndexEntry> entries) {
+        for (CacheIndexEntry entry : entries) {
+            this.entries.put(entry.getKey(), entry);
+        }
+    }
+
+    /**
+     * Loads the index of the given cache directory. If the index file is missing or unreadable, the index is
+     * rebuilt from the entry headers in the directory.
+     *
+     * @param directory the cache directory, with or without a trailing separator
+     * @return the loaded index
+     */
+    public static CacheIndex load(String directory) {
+        // Entry paths are built by appending the key to the directory
+        if (!directory.endsWith("/") && !directory.endsWith(File.separator)) {
+            directory += "/";
+        }
+
+        CacheIndex index = null;
+
+        try {
+            index = (CacheIndex) DiskIO.read(directory + INDEX_FILENAME, CacheIndex.class);
+        } catch (Exception ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+
+        if (index == null) {
+            index = rebuild(directory);
+        }
+
+        index.directory = directory;
+        return index;
+    }
+
+    /**
+     * Builds the index by reading the header of every entry in the cache directory.
+     *
+     * @param directory the cache directory
+     * @return the built index
+     */
+    private static CacheIndex rebuild(String directory) {
+        List<CacheIndexEntry> entries = new ArrayList<>();
+        File[] headers = new File(directory).listFiles((dir, name) -> name.endsWith(HEADER_SUFFIX));
+
+        if (headers != null) {
+            for (File file : headers) {
+                String key = file.getName().substring(0, file.getName().length() - HEADER_SUFFIX.length());
+                try {
+                    CacheHeader header = (CacheHeader) DiskIO.read(file.getPath(), CacheHeader.class);
+                    if (header != null && header.getUrl() != null) {
+                        entries.add(CacheIndexEntry.of(key, header));
+                    }
+                } catch (Exception ignored) {
+                    // Unreadable entries are left out and get overwritten when fetched again
+                }
+            }
+        }
+
+        CacheIndex index = new CacheIndex(entries);
+        index.dirty = !entries.isEmpty();
+        return index;
+    }
+
+    /**
+     * Returns the path of the given cache entry file without suffix.
+     *
+     * @param key the cache key
+     * @return the entry path
+     */
+    public String getPath(String key) {
+        return directory + key;
+    }
+
+    /**
+     * Returns the entry for the given cache key.
+     *
+     * @param key the cache key
+     * @return the entry or null if not cached
+     */
+    public CacheIndexEntry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Returns all entries in the index.
+     *
+     * @return the index entries
+     */
+    public Collection<CacheIndexEntry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * Adds or replaces an entry.
+     *
+     * @param entry the entry to add
+     */
+    public void put(CacheIndexEntry entry) {
+        entries.put(entry.getKey(), entry);
+        dirty = true;
+    }
+
+    /**
+     * Adds the entry of a response written with the given header. If the entry already exists, it is updated
+     * and keeps its access statistics.
+     *
+     * @param key    the cache key
+     * @param header the header of the cached response
+     */
+    public void put(String key, CacheHeader header) {
+        entries.compute(key, (k, entry) -> entry == null ? CacheIndexEntry.of(k, header) : entry.refreshed(header));
+        dirty = true;
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key the cache key
+     */
+    public void remove(String key) {
+        if (entries.remove(key) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Returns the total size of all cached bodies.
+     *
+     * @return the total size in bytes
+     */
+    public long getTotalSize() {
+        long total = 0;
+        for (CacheIndexEntry entry : entries.values()) {
+            total += entry.getSize();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the cache directory of this index.
+     *
+     * @return the cache directory
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Marks the entry as used at the given time.
+     *
+     * @param key  the cache key
+     * @param time the access time
+     */
+    public void touch(String key, long time) {
+        CacheIndexEntry entry = entries.get(key);
+        if (entry != null) {
+            entry.touch(time);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the index to the cache directory if it has changed since it was loaded or last saved. The index
+     * stays changed if it couldn't be written, so that the next call tries again.
+     *
+     * @throws IOException if the index couldn't be written
+     */
+    public synchronized void save() throws IOException {
+        if (dirty) {
+            // Cleared first so that changes made while the index is serialized are saved next time
+            dirty = false;
+            try {
+                DiskIO.write(directory + INDEX_FILENAME, this);
+            } catch (IOException ex) {
+                dirty = true;
+                throw ex;
+            }
+        }
+    }
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(CacheIndex.class, new CacheIndexAdapter()).create();
+
+    /**
+     * Returns the Gson instance configured for this class.
+     *
+     * @return the Gson instance
+     */
+    @Override
+    public Gson getGson() {
+        return GSON;
+    }
+}
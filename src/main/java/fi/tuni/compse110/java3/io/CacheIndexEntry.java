@@ -0,0 +1,196 @@
+package fi.tuni.compse110.java3.io;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metadata of a single entry in the response cache.
+ */
+public class CacheIndexEntry {
+
+    private final String key;
+    private final String url;
+    private final String endpoint;
+    private final String asset;
+    private final String startDate;
+    private final String endDate;
+    private final long size;
+    private final long time;
+    private final long ttl;
+    private volatile long lastAccess;
+    private final AtomicInteger accessCount;
+
+    /**
+     * Constructs a new CacheIndexEntry.
+     *
+     * @param key         the cache key
+     * @param url         the normalized API url
+     * @param endpoint    the endpoint type, e.g. "coins/market_chart"
+     * @param asset       the asset the entry is for or null
+     * @param startDate   the start date of the requested range or null
+     * @param endDate     the end date of the requested range or null
+     * @param size        the size of the cached body file in bytes
+     * @param time        the time when the original request was made
+     * @param ttl         how many seconds the response was allowed to be cached when it was written
+     * @param lastAccess  the time when the entry was last used
+     * @param accessCount how many times the entry has been used
+     */
+    public CacheIndexEntry(String key, String url, String endpoint, String asset, String startDate, String endDate,
+            long size, long time, long ttl, long lastAccess, int accessCount) {
+        this.key = key;
+        this.url = url;
+        this.endpoint = endpoint;
+        this.asset = asset;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.size = size;
+        this.time = time;
+        this.ttl = ttl;
+        this.lastAccess = lastAccess;
+        this.accessCount = new AtomicInteger(accessCount);
+    }
+
+    /**
+     * Creates an index entry describing the cached response with the given header.
+     *
+     * @param key    the cache key
+     * @param header the header of the cached response
+     * @return the created entry
+     */
+    public static CacheIndexEntry of(String key, CacheHeader header) {
+        String url = header.getUrl();
+        return new CacheIndexEntry(key, url, CacheKey.getEndpoint(url), CacheKey.getAsset(url),
+                CacheKey.getParameter(url, "start_date"), CacheKey.getParameter(url, "end_date"),
+                header.getStoredLength(), header.getTime(), header.getTtl(), header.getTime(), 0);
+    }
+
+    /**
+     * Creates an entry describing the rewritten or revalidated response with the given header, keeping the access
+     * statistics of this entry.
+     *
+     * @param header the new header of the cached response
+     * @return the updated entry
+     */
+    public CacheIndexEntry refreshed(CacheHeader header) {
+        return new CacheIndexEntry(key, url, endpoint, asset, startDate, endDate, header.getStoredLength(),
+                header.getTime(), header.getTtl(), lastAccess, accessCount.get());
+    }
+
+    /**
+     * Returns the cache key.
+     *
+     * @return the cache key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the normalized API url.
+     *
+     * @return the normalized API url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the endpoint type, e.g. "coins/market_chart".
+     *
+     * @return the endpoint type
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the asset the entry is for.
+     *
+     * @return the asset or null
+     */
+    public String getAsset() {
+        return asset;
+    }
+
+    /**
+     * Returns the start date of the requested range as given in the url.
+     *
+     * @return the start date or null
+     */
+    public String getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Returns the end date of the requested range as given in the url.
+     *
+     * @return the end date or null
+     */
+    public String getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Returns the size of the cached body file, which is compressed for new entries.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the time when the original request was made.
+     *
+     * @return the time when the original request was made
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns how many seconds the response was allowed to be cached when it was written.
+     *
+     * @return the time to live in seconds
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Returns the time when the entry was last used.
+     *
+     * @return the last access time
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Returns how many times the entry has been used.
+     *
+     * @return the access count
+     */
+    public int getAccessCount() {
+        return accessCount.get();
+    }
+
+    /**
+     * Returns whether the entry never expires, like history chunks that can't change anymore. Pinned entries are
+     * evicted only after all other entries.
+     *
+     * @return true if the entry is pinned
+     */
+    public boolean isPinned() {
+        return ttl >= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Marks the entry as used at the given time.
+     *
+     * @param time the access time
+     */
+    public void touch(long time) {
+        lastAccess = time;
+        accessCount.incrementAndGet();
+    }
+}
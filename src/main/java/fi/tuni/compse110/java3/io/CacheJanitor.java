@@ -0,0 +1,302 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the response cache directory within its size and age limits. Runs on its own background thread and deletes
+ * the files of an entry while holding its write lock, so that a reader never sees half of a removed entry.
+ */
+public class CacheJanitor {
+
+    /**
+     * Entries and files used more recently than this are never removed, as a reader may be about to read them.
+     */
+    private static final long GRACE_PERIOD = 60 * 1000;
+
+    private final CacheIndex index;
+    private final CacheLocks locks;
+    private final long maxBytes;
+    private final long maxAge;
+    private final EvictionPolicy policy;
+    private final Consumer<String> evictionListener;
+
+    private final AtomicBoolean runPending = new AtomicBoolean();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructs a new CacheJanitor.
+     *
+     * @param index            the index of the cache to keep in bounds
+     * @param locks            the entry locks of the cache
+     * @param maxBytes         the maximum total size of cached bodies in bytes
+     * @param maxAge           how many seconds an entry may go unused before it is removed
+     * @param policy           which entries are evicted first when the cache is too large
+     * @param evictionListener called with the key of every removed entry before its files are deleted
+     */
+    public CacheJanitor(CacheIndex index, CacheLocks locks, long maxBytes, long maxAge, EvictionPolicy policy,
+            Consumer<String> evictionListener) {
+        this.index = index;
+        this.locks = locks;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+        this.policy = policy;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Starts cleaning the cache periodically on a background thread.
+     *
+     * @param interval how many seconds to wait between runs
+     */
+    public synchronized void start(long interval) {
+        if (executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-janitor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Asks for a run as soon as possible, for example after new entries were written. Does nothing if a run is
+     * already pending or the janitor isn't started.
+     */
+    public synchronized void requestRun() {
+        if (executor != null && runPending.compareAndSet(false, true)) {
+            executor.execute(this::runSafely);
+        }
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Removes entries unused for longer than the maximum age, then evicts entries until the cache fits its size
+     * limit. Pinned entries are evicted only after every other entry. Also adds entries written by other instances
+     * sharing the cache directory to the index, deletes files that don't belong to any valid entry and deletes
+     * unused lock files of entries that are no longer cached.
+     *
+     * @param now the current time
+     * @return the number of removed entries
+     */
+    public int runOnce(long now) {
+        int removed = 0;
+        List<CacheIndexEntry> candidates = new ArrayList<>();
+
+        for (CacheIndexEntry entry : index.getEntries()) {
+            if (now - entry.getLastAccess() < GRACE_PERIOD) {
+                continue;
+            }
+            if (now - entry.getLastAccess() > 1000 * maxAge) {
+                if (evict(entry)) {
+                    removed++;
+                }
+            } else {
+                candidates.add(entry);
+            }
+        }
+
+        long totalSize = index.getTotalSize();
+
+        if (totalSize > maxBytes) {
+            candidates.sort(Comparator.comparing(CacheIndexEntry::isPinned).thenComparing(policy.getOrder()));
+
+            for (CacheIndexEntry entry : candidates) {
+                if (totalSize <= maxBytes) {
+                    break;
+                }
+                if (evict(entry)) {
+                    totalSize -= entry.getSize();
+                    removed++;
+                }
+            }
+        }
+
+        boolean adopted = checkOrphans(now);
+        deleteUnusedLocks();
+
+        if (removed > 0 || adopted) {
+            try {
+                index.save();
+            } catch (IOException ex) {
+                // noinspection CallToPrintStackTrace
+                ex.printStackTrace();
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Runs once, catching everything so that the scheduled task keeps running.
+     */
+    private void runSafely() {
+        runPending.set(false);
+        try {
+            int removed = runOnce(System.currentTimeMillis());
+            if (removed > 0) {
+                System.out.println("Cache janitor removed " + removed + " entries");
+            }
+        } catch (Exception ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes the entry from the index, notifies the eviction listener and deletes the entry files, all under the
+     * entry's write lock.
+     *
+     * @param entry the entry to remove
+     * @return true if the entry was removed, false if its lock couldn't be acquired
+     */
+    @SuppressWarnings("try")
+    private boolean evict(CacheIndexEntry entry) {
+        String key = entry.getKey();
+
+        try (CacheLocks.Handle ignored = locks.lockWrite(key)) {
+            index.remove(key);
+            evictionListener.accept(key);
+
+            String path = index.getPath(key);
+            DiskIO.delete(path + CacheIndex.HEADER_SUFFIX);
+            DiskIO.delete(path + CacheIndex.BODY_SUFFIX);
+        } catch (IOException ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks the files that belong to no index entry. Entries written by another instance sharing the cache
+     * directory are added to the index, while incomplete entries, files of an older cache format and temporary
+     * files left behind by failed writes are deleted. Recently modified files are kept as they may belong to an
+     * entry that is being written.
+     *
+     * @param now the current time
+     * @return true if entries were added to the index
+     */
+    private boolean checkOrphans(long now) {
+        File[] files = new File(index.getDirectory()).listFiles(File::isFile);
+
+        if (files == null) {
+            return false;
+        }
+
+        boolean adopted = false;
+
+        for (File file : files) {
+            String name = file.getName();
+
+            if (name.equals(CacheIndex.INDEX_FILENAME) || now - file.lastModified() < GRACE_PERIOD) {
+                continue;
+            }
+
+            if (name.endsWith(CacheIndex.HEADER_SUFFIX) || name.endsWith(CacheIndex.BODY_SUFFIX)) {
+                String key = name.substring(0, name.lastIndexOf('.'));
+                if (index.get(key) == null) {
+                    adopted |= adoptOrDelete(key);
+                }
+            } else {
+                DiskIO.delete(file.getPath());
+            }
+        }
+
+        return adopted;
+    }
+
+    /**
+     * Deletes the lock files of entries that aren't in the index, like evicted entries. Lock files that are in
+     * use are kept.
+     */
+    private void deleteUnusedLocks() {
+        File[] files = new File(index.getDirectory() + CacheIndex.LOCK_DIRECTORY)
+                .listFiles((dir, name) -> name.endsWith(CacheLocks.LOCK_SUFFIX));
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            String key = name.substring(0, name.length() - CacheLocks.LOCK_SUFFIX.length());
+
+            if (index.get(key) == null) {
+                locks.delete(key);
+            }
+        }
+    }
+
+    /**
+     * Adds the entry to the index if its header is readable and its body complete, otherwise deletes its files.
+     * The entry is checked under its write lock, so that an entry another instance is writing is never deleted.
+     *
+     * @param key the cache key
+     * @return true if the entry was added to the index
+     */
+    @SuppressWarnings("try")
+    private boolean adoptOrDelete(String key) {
+        String path = index.getPath(key);
+
+        try (CacheLocks.Handle ignored = locks.lockWrite(key)) {
+            if (index.get(key) != null) {
+                return false; // Added by this instance while waiting for the lock
+            }
+
+            CacheHeader header = readHeader(path + CacheIndex.HEADER_SUFFIX);
+
+            if (header != null && header.getUrl() != null
+                    && DiskIO.size(path + CacheIndex.BODY_SUFFIX) == header.getStoredLength()) {
+                index.put(CacheIndexEntry.of(key, header));
+                return true;
+            }
+
+            DiskIO.delete(path + CacheIndex.HEADER_SUFFIX);
+            DiskIO.delete(path + CacheIndex.BODY_SUFFIX);
+        } catch (IOException ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the header of an entry.
+     *
+     * @param file the header file
+     * @return the header or null if it is missing or unreadable
+     */
+    private static CacheHeader readHeader(String file) {
+        try {
+            return (CacheHeader) DiskIO.read(file, CacheHeader.class);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+}
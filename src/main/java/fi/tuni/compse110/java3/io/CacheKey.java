@@ -0,0 +1,207 @@
+package fi.tuni.compse110.java3.io;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Derives cache keys and metadata from API urls.
+ */
+public class CacheKey {
+
+    /**
+     * Query parameters holding API keys. They are left out of cache keys so that the cache survives key changes
+     * and no keys are written to the cache directory.
+     */
+    private static final Set<String> SECRET_PARAMETERS = Set.of("api_key", "x_cg_demo_api_key");
+
+    private CacheKey() {
+    }
+
+    /**
+     * Normalizes the url for use as a cache key: scheme and host are lower-cased and API key parameters removed.
+     *
+     * @param url the API url
+     * @return the normalized url
+     */
+    public static String normalize(String url) {
+        URI uri = URI.create(url);
+        StringBuilder out = new StringBuilder();
+
+        out.append(uri.getScheme().toLowerCase(Locale.ROOT)).append("://")
+                .append(uri.getRawAuthority().toLowerCase(Locale.ROOT));
+
+        if (uri.getRawPath() != null) {
+            out.append(uri.getRawPath());
+        }
+
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : queryParameters(uri)) {
+            if (!SECRET_PARAMETERS.contains(parameterName(parameter))) {
+                parameters.add(parameter);
+            }
+        }
+
+        if (!parameters.isEmpty()) {
+            out.append('?').append(String.join("&", parameters));
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Returns the cache key of the url: a hex encoded SHA-256 digest of the normalized url.
+     *
+     * @param url the API url
+     * @return the cache key
+     */
+    public static String digest(String url) {
+        return sha256(normalize(url));
+    }
+
+    /**
+     * Returns the fixture key of the url: a hex encoded SHA-256 digest of the normalized url without scheme and
+     * host. Recorded responses are stored by this key so that they can be served from any address.
+     *
+     * @param url the API url
+     * @return the fixture key
+     */
+    public static String getFixtureKey(String url) {
+        URI uri = URI.create(normalize(url));
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        return sha256(uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery());
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the text.
+     *
+     * @param text the text to digest
+     * @return the digest
+     */
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Returns the endpoint type of the url, which is the path after the API version with asset ids left out.
+     * For example "coins/market_chart" or "timeseries".
+     *
+     * @param url the API url
+     * @return the endpoint type
+     */
+    public static String getEndpoint(String url) {
+        List<String> segments = pathSegments(url);
+
+        if (segments.size() == 3 && segments.get(0).equals("coins")) {
+            return segments.get(0) + "/" + segments.get(2);
+        }
+
+        return String.join("/", segments);
+    }
+
+    /**
+     * Returns the asset the url is for, for example the coin id in CoinGecko coin urls.
+     *
+     * @param url the API url
+     * @return the asset or null if the url is not for a single asset
+     */
+    public static String getAsset(String url) {
+        List<String> segments = pathSegments(url);
+
+        if (segments.size() == 3 && segments.get(0).equals("coins")) {
+            return segments.get(1);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the value of the given query parameter.
+     *
+     * @param url  the API url
+     * @param name the parameter name
+     * @return the parameter value or null if not present
+     */
+    public static String getParameter(String url, String name) {
+        for (String parameter : queryParameters(URI.create(url))) {
+            if (parameterName(parameter).equals(name)) {
+                int separator = parameter.indexOf('=');
+                return separator < 0 ? "" : parameter.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the path segments after the API version segment (e.g. "v1" or "v3").
+     *
+     * @param url the API url
+     * @return the path segments
+     */
+    private static List<String> pathSegments(String url) {
+        String path = URI.create(url).getRawPath();
+        List<String> segments = new ArrayList<>();
+
+        if (path == null) {
+            return segments;
+        }
+
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.matches("v\\d+")) {
+                segments.clear(); // Only keep what follows the version
+                continue;
+            }
+            segments.add(segment);
+        }
+
+        return segments;
+    }
+
+    /**
+     * Returns the raw query parameters of the uri in their original order.
+     *
+     * @param uri the API uri
+     * @return the query parameters as "name=value" strings
+     */
+    private static List<String> queryParameters(URI uri) {
+        List<String> parameters = new ArrayList<>();
+        String query = uri.getRawQuery();
+
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (String parameter : query.split("&")) {
+            if (!parameter.isEmpty()) {
+                parameters.add(parameter);
+            }
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Returns the name part of a "name=value" query parameter.
+     *
+     * @param parameter the query parameter
+     * @return the parameter name
+     */
+    private static String parameterName(String parameter) {
+        int separator = parameter.indexOf('=');
+        return separator < 0 ? parameter : parameter.substring(0, separator);
+    }
+}
@@ -0,0 +1,423 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locks cache entries across threads and processes sharing the same cache directory. Every entry has a lock file
+ * with two regions: one held exclusively while the entry is fetched, so that only one instance calls the API for
+ * it, and one held shared while the entry files are read and exclusively while they are written.
+ * <p>
+ * File locks belong to the whole JVM, so threads of this process are coordinated with in-memory locks and only
+ * the first thread takes the file lock. A lock file is open only while the entry is locked, and the lock files of
+ * entries that are no longer cached can be deleted with {@link #delete(String)}.
+ */
+public class CacheLocks {
+
+    /**
+     * Suffix of the lock files.
+     */
+    public static final String LOCK_SUFFIX = ".lock";
+
+    private static final long FETCH_REGION = 0;
+    private static final long DATA_REGION = 1;
+
+    private final Path directory;
+    private final Map<String, EntryLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * A held lock, released by closing it.
+     */
+    @FunctionalInterface
+    public interface Handle extends AutoCloseable {
+
+        /**
+         * Releases the lock.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Constructs a new CacheLocks keeping its lock files in the given directory.
+     *
+     * @param directory the lock file directory
+     */
+    public CacheLocks(String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Acquires the right to fetch the entry, waiting while another thread or process is fetching it.
+     *
+     * @param key the cache key
+     * @return the held lock
+     * @throws IOException if the lock couldn't be acquired
+     */
+    public Handle lockFetch(String key) throws IOException {
+        EntryLock entry = acquireEntry(key);
+
+        try {
+            entry.fetching.acquireUninterruptibly();
+            try {
+                FileLock fileLock = entry.lock(FETCH_REGION, false);
+                return () -> {
+                    release(fileLock);
+                    entry.fetching.release();
+                    releaseEntry(key, entry);
+                };
+            } catch (IOException | RuntimeException ex) {
+                entry.fetching.release();
+                throw ex;
+            }
+        } catch (IOException | RuntimeException ex) {
+            releaseEntry(key, entry);
+            throw ex;
+        }
+    }
+
+    /**
+     * Acquires a shared lock for reading the entry files, waiting while they are being written.
+     *
+     * @param key the cache key
+     * @return the held lock
+     * @throws IOException if the lock couldn't be acquired
+     */
+    public Handle lockRead(String key) throws IOException {
+        EntryLock entry = acquireEntry(key);
+
+        try {
+            entry.data.readLock().lock();
+            try {
+                synchronized (entry) {
+                    if (entry.readers == 0) {
+                        entry.sharedLock = entry.lock(DATA_REGION, true);
+                    }
+                    entry.readers++;
+                }
+            } catch (IOException | RuntimeException ex) {
+                entry.data.readLock().unlock();
+                throw ex;
+            }
+        } catch (IOException | RuntimeException ex) {
+            releaseEntry(key, entry);
+            throw ex;
+        }
+
+        return () -> {
+            synchronized (entry) {
+                if (--entry.readers == 0) {
+                    release(entry.sharedLock);
+                    entry.sharedLock = null;
+                }
+            }
+            entry.data.readLock().unlock();
+            releaseEntry(key, entry);
+        };
+    }
+
+    /**
+     * Acquires an exclusive lock for writing the entry files, waiting while they are being read or written.
+     *
+     * @param key the cache key
+     * @return the held lock
+     * @throws IOException if the lock couldn't be acquired
+     */
+    public Handle lockWrite(String key) throws IOException {
+        EntryLock entry = acquireEntry(key);
+
+        try {
+            entry.data.writeLock().lock();
+            try {
+                FileLock fileLock = entry.lock(DATA_REGION, false);
+                return () -> {
+                    release(fileLock);
+                    entry.data.writeLock().unlock();
+                    releaseEntry(key, entry);
+                };
+            } catch (IOException | RuntimeException ex) {
+                entry.data.writeLock().unlock();
+                throw ex;
+            }
+        } catch (IOException | RuntimeException ex) {
+            releaseEntry(key, entry);
+            throw ex;
+        }
+    }
+
+    /**
+     * Deletes the lock file of an entry, for entries that are no longer cached. Nothing is deleted while any
+     * thread or process holds or waits for a lock of the entry.
+     *
+     * @param key the cache key
+     * @return true if the lock file was deleted
+     */
+    public boolean delete(String key) {
+        EntryLock entry = acquireEntry(key);
+
+        try {
+            if (!entry.fetching.tryAcquire()) {
+                return false;
+            }
+            try {
+                if (!entry.data.writeLock().tryLock()) {
+                    return false;
+                }
+                try {
+                    return entry.deleteFile();
+                } finally {
+                    entry.data.writeLock().unlock();
+                }
+            } finally {
+                entry.fetching.release();
+            }
+        } finally {
+            releaseEntry(key, entry);
+        }
+    }
+
+    /**
+     * Closes all lock files. Called when the application is closed.
+     */
+    public void close() {
+        for (EntryLock entry : locks.values()) {
+            entry.close();
+        }
+        locks.clear();
+    }
+
+    /**
+     * Returns the number of entries whose lock file is open.
+     *
+     * @return the number of open lock files
+     */
+    public int getOpenCount() {
+        return locks.size();
+    }
+
+    /**
+     * Returns the lock state of the entry for a caller that is about to lock it, creating it if needed. Every
+     * call must be paired with {@link #releaseEntry(String, EntryLock)}.
+     *
+     * @param key the cache key
+     * @return the entry lock
+     */
+    private EntryLock acquireEntry(String key) {
+        return locks.compute(key, (k, entry) -> {
+            EntryLock acquired = entry != null ? entry : new EntryLock(directory.resolve(k + LOCK_SUFFIX));
+            acquired.users++;
+            return acquired;
+        });
+    }
+
+    /**
+     * Releases the lock state of the entry, closing its lock file once no caller uses it.
+     *
+     * @param key   the cache key
+     * @param entry the entry lock
+     */
+    private void releaseEntry(String key, EntryLock entry) {
+        locks.computeIfPresent(key, (k, current) -> {
+            if (current != entry || --current.users > 0) {
+                return current;
+            }
+            current.close();
+            return null;
+        });
+    }
+
+    /**
+     * Releases the file lock, ignoring a lock file that has already been closed.
+     *
+     * @param fileLock the lock to release
+     */
+    private static void release(FileLock fileLock) {
+        try {
+            if (fileLock != null && fileLock.isValid()) {
+                fileLock.release();
+            }
+        } catch (IOException ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Lock state of a single entry in this process.
+     */
+    private static class EntryLock {
+
+        private final Path path;
+        private final Semaphore fetching = new Semaphore(1);
+        private final ReentrantReadWriteLock data = new ReentrantReadWriteLock();
+        private FileChannel channel;
+        private Object fileKey;
+        private FileLock sharedLock;
+        private int readers;
+
+        /**
+         * Callers holding or waiting for a lock of the entry, guarded by the map of entries.
+         */
+        private int users;
+
+        /**
+         * Constructs a new EntryLock.
+         *
+         * @param path the lock file
+         */
+        EntryLock(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Returns the open lock file, opening it on first use.
+         *
+         * @return the lock file channel
+         * @throws IOException if the lock file couldn't be opened
+         */
+        synchronized FileChannel getChannel() throws IOException {
+            if (channel == null) {
+                Files.createDirectories(path.getParent());
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                fileKey = readFileKey();
+            }
+            return channel;
+        }
+
+        /**
+         * Locks a region of the lock file. If the file was deleted while waiting, the new lock file is locked
+         * instead.
+         *
+         * @param region the region to lock
+         * @param shared whether the lock is shared
+         * @return the held file lock
+         * @throws IOException if the lock couldn't be acquired
+         */
+        FileLock lock(long region, boolean shared) throws IOException {
+            while (true) {
+                FileChannel current = getChannel();
+                FileLock fileLock;
+
+                try {
+                    fileLock = current.lock(region, 1, shared);
+                } catch (ClosedChannelException ex) {
+                    if (isReopened(current)) {
+                        continue; // Another thread noticed the file was deleted while waiting
+                    }
+                    throw ex;
+                }
+
+                if (isCurrent(current)) {
+                    return fileLock;
+                }
+
+                release(fileLock);
+                reopen(current);
+            }
+        }
+
+        /**
+         * Deletes the lock file if no other process holds or waits for it. The caller must hold every lock of
+         * the entry in this process.
+         *
+         * @return true if the lock file was deleted
+         */
+        boolean deleteFile() {
+            try {
+                FileChannel current = getChannel();
+                FileLock fileLock = current.tryLock(FETCH_REGION, 2, false);
+
+                if (fileLock == null) {
+                    return false; // Used by another process
+                }
+
+                try {
+                    // Processes waiting for the deleted file notice it has been replaced once they get the lock
+                    return isCurrent(current) && Files.deleteIfExists(path);
+                } finally {
+                    release(fileLock);
+                }
+            } catch (IOException | OverlappingFileLockException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns whether the channel still refers to the file at the lock file path.
+         *
+         * @param current the channel to check
+         * @return false if the lock file has been deleted or replaced since the channel was opened
+         */
+        private synchronized boolean isCurrent(FileChannel current) throws IOException {
+            if (current != channel) {
+                return false;
+            }
+            try {
+                Object key = readFileKey();
+                // Without file keys a replaced file can't be told apart, but open files can't be deleted then
+                return key == null || key.equals(fileKey);
+            } catch (NoSuchFileException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the identity of the file at the lock file path.
+         *
+         * @return the file key or null if the platform doesn't have one
+         * @throws IOException if the file attributes couldn't be read
+         */
+        private Object readFileKey() throws IOException {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        }
+
+        /**
+         * Returns whether the channel has been closed because its lock file was deleted.
+         *
+         * @param stale the channel to check
+         * @return true if the lock file has been opened again or will be on next use
+         */
+        private synchronized boolean isReopened(FileChannel stale) {
+            return channel != stale;
+        }
+
+        /**
+         * Closes the channel if it is still the current one, so that the next lock opens the lock file again.
+         *
+         * @param stale the channel of a deleted lock file
+         */
+        private synchronized void reopen(FileChannel stale) {
+            if (channel == stale) {
+                close();
+                channel = null;
+            }
+        }
+
+        /**
+         * Closes the lock file, which releases any file locks still held.
+         */
+        synchronized void close() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ex) {
+                // noinspection CallToPrintStackTrace
+                ex.printStackTrace();
+            }
+        }
+    }
+}
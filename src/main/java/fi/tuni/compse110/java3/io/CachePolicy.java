@@ -0,0 +1,22 @@
+package fi.tuni.compse110.java3.io;
+
+/**
+ * What {@link CachedRequest} does when the cached response is older than the caller allows.
+ */
+public enum CachePolicy {
+
+    /**
+     * Fetch the response again and fail if the request fails.
+     */
+    FRESH_ONLY,
+
+    /**
+     * Return the stale response immediately and fetch a new one in the background.
+     */
+    STALE_WHILE_REVALIDATE,
+
+    /**
+     * Fetch the response again, but return the stale response if the request fails.
+     */
+    STALE_IF_ERROR
+}
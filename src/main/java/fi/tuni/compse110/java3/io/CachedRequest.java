@@ -1,19 +1,37 @@
 package fi.tuni.compse110.java3.io;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.HttpResponseException;
 import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.http.message.BasicHeader;
 
-import fi.tuni.compse110.java3.utility.DialogUtils;
+import fi.tuni.compse110.java3.utility.Constants;
 
 /**
  * Gets data from APIs and caches the responses to avoid rate limits.
@@ -21,7 +39,65 @@ import fi.tuni.compse110.java3.utility.DialogUtils;
 public class CachedRequest {
 
     /**
-     * Returns API response.
+     * Index of the disk cache, loaded once at startup.
+     */
+    private static final CacheIndex INDEX = CacheIndex.load(Constants.CACHE_DIRECTORY);
+
+    /**
+     * Locks cache entries against other instances of the application using the same cache directory.
+     */
+    private static final CacheLocks LOCKS = new CacheLocks(INDEX.getDirectory() + CacheIndex.LOCK_DIRECTORY);
+
+    /**
+     * Requests that are currently being fetched, keyed by API url. Concurrent callers asking for the same url
+     * wait for the same future instead of fetching and writing the response again.
+     */
+    private static final Map<String, CompletableFuture<CachedResponse>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * In-memory responses in front of the disk cache, keyed by cache key.
+     */
+    private static final ResponseMemoryCache MEMORY_CACHE = new ResponseMemoryCache(Constants.MEMORY_CACHE_MAX_BYTES);
+
+    /**
+     * Keeps the disk cache within its size and age limits in the background. Evicted entries are dropped from
+     * the memory cache too, as their bodies are loaded from the deleted files.
+     */
+    private static final CacheJanitor JANITOR = new CacheJanitor(INDEX, LOCKS, Constants.CACHE_MAX_BYTES,
+            Constants.CACHE_MAX_AGE, Constants.CACHE_EVICTION_POLICY, MEMORY_CACHE::invalidate);
+
+    static {
+        JANITOR.start(Constants.CACHE_JANITOR_INTERVAL);
+    }
+
+    /**
+     * Runs background refreshes of stale responses.
+     */
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Spaces out requests to stay within the quotas of the APIs.
+     */
+    private static final RequestScheduler SCHEDULER = new RequestScheduler(Constants.RATE_LIMITS,
+            Constants.DEFAULT_RATE_LIMIT, Constants.REQUEST_QUEUE_MAX);
+
+    /**
+     * Retries failed requests.
+     */
+    private static final RetryPolicy RETRY = new RetryPolicy(Constants.RETRY_MAX_ATTEMPTS, Constants.RETRY_BASE_DELAY,
+            Constants.RETRY_MAX_DELAY);
+
+    /**
+     * Circuit breakers of the API hosts.
+     */
+    private static final Map<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns API response. Expired responses are fetched again before returning.
      *
      * @param api            API url
      * @param maxResponseAge how many seconds the response can be cached
@@ -29,86 +105,607 @@ public class CachedRequest {
      * @throws IOException on failed request
      */
     public static CachedResponse get(String api, long maxResponseAge) throws IOException {
-        int apiHash = api.hashCode();
+        return get(api, maxResponseAge, CachePolicy.FRESH_ONLY);
+    }
+
+    /**
+     * Returns API response, using the given policy when the cached response has expired.
+     *
+     * @param api            API url
+     * @param maxResponseAge how many seconds the response can be cached
+     * @param policy         what to do with an expired cached response
+     * @return the cached response, {@link CachedResponse#isStale()} tells if it has expired
+     * @throws IOException on failed request if no usable cached response was found
+     */
+    public static CachedResponse get(String api, long maxResponseAge, CachePolicy policy) throws IOException {
+        return get(api, maxResponseAge, policy, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Returns API response, using the given policy when the cached response has expired. If the response has to
+     * be fetched, the request waits for its turn with the given priority.
+     *
+     * @param api            API url
+     * @param maxResponseAge how many seconds the response can be cached
+     * @param policy         what to do with an expired cached response
+     * @param priority       the priority of the request if it has to be fetched
+     * @return the cached response, {@link CachedResponse#isStale()} tells if it has expired
+     * @throws IOException on failed request if no usable cached response was found
+     */
+    public static CachedResponse get(String api, long maxResponseAge, CachePolicy policy, RequestPriority priority)
+            throws IOException {
+        String key = CacheKey.digest(api);
         long requestTime = System.currentTimeMillis();
 
-        CachedResponse cached = readCached("cache/" + apiHash, requestTime, maxResponseAge);
+        CachedResponse cached = getCached(api, key, requestTime, maxResponseAge);
 
         if (cached != null) {
             return cached;
-        } else {
-            System.out.println(apiHash + " fetching " + api);
-            CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        }
+
+        CachedResponse stale = policy == CachePolicy.FRESH_ONLY ? null : getStale(api, key, requestTime);
+
+        if (stale != null && policy == CachePolicy.STALE_WHILE_REVALIDATE) {
+            REFRESH_EXECUTOR.execute(() -> {
+                try {
+                    fetchShared(api, key, System.currentTimeMillis(), maxResponseAge, RequestPriority.REFRESH);
+                } catch (Exception ex) {
+                    System.out.println("Failed to refresh " + CacheKey.normalize(api) + ": " + ex.getMessage());
+                }
+            });
+            return stale;
+        }
+
+        try {
+            return fetchShared(api, key, requestTime, maxResponseAge, priority);
+        } catch (IOException ex) {
+            if (stale != null) {
+                System.out.println("Using stale response for " + CacheKey.normalize(api) + ": " + ex.getMessage());
+                return stale;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the response from memory or disk cache if it is not older than the given age.
+     *
+     * @param api            API url
+     * @param key            the cache key
+     * @param requestTime    the time of current request
+     * @param maxResponseAge the maximum age of the cached response in seconds
+     * @return the cached response or null if not found or outdated
+     */
+    private static CachedResponse getCached(String api, String key, long requestTime, long maxResponseAge) {
+        CachedResponse cached = MEMORY_CACHE.get(key, requestTime, maxResponseAge);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        // Only entries listed in the index can be on disk
+        if (INDEX.get(key) != null) {
+            cached = readCached(key, INDEX.getPath(key), CacheKey.normalize(api), requestTime, maxResponseAge);
+
+            if (cached != null) {
+                INDEX.touch(key, requestTime);
+                MEMORY_CACHE.put(key, cached);
+                return cached;
+            }
+        }
 
-            try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-                ClassicHttpRequest request = ClassicRequestBuilder.get(api)
-                        .setHeader(new BasicHeader("accept", "application/json")).build();
+        return null;
+    }
+
+    /**
+     * Returns the cached response regardless of its age, marked as stale.
+     *
+     * @param api         API url
+     * @param key         the cache key
+     * @param requestTime the time of current request
+     * @return the stale response or null if nothing is cached
+     */
+    private static CachedResponse getStale(String api, String key, long requestTime) {
+        CachedResponse cached = getCached(api, key, requestTime, Long.MAX_VALUE / 1000);
+        return cached == null ? null : cached.asStale();
+    }
+
+    /**
+     * Fetches the API response, sharing the fetch with concurrent callers asking for the same url.
+     *
+     * @param api            API url
+     * @param key            the cache key
+     * @param requestTime    the time of current request
+     * @param maxResponseAge how many seconds the response can be cached
+     * @param priority       the priority of the request
+     * @return the fetched response
+     * @throws IOException on failed request
+     */
+    @SuppressWarnings("try")
+    private static CachedResponse fetchShared(String api, String key, long requestTime, long maxResponseAge,
+            RequestPriority priority) throws IOException {
+        CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> inFlight = IN_FLIGHT.putIfAbsent(api, future);
+
+        if (inFlight != null) {
+            // Someone else is already fetching this url, share their result
+            return await(inFlight);
+        }
+
+        try {
+            // The previous fetch may have completed between the cache check and claiming the url
+            CachedResponse cached = MEMORY_CACHE.get(key, requestTime, maxResponseAge);
 
-                httpclient.execute(request, response -> {
-                    System.out.println(response.getCode() + " " + response.getReasonPhrase());
+            if (cached == null) {
+                // Waits while another instance of the application is fetching the same entry
+                try (CacheLocks.Handle ignored = LOCKS.lockFetch(key)) {
+                    cached = readFetchedElsewhere(api, key, requestTime, maxResponseAge);
 
-                    if (response.getCode() == 200) {
-                        HttpEntity entity = response.getEntity();
+                    if (cached == null) {
+                        cached = fetch(api, key, requestTime, maxResponseAge, priority);
+                    }
+                }
+            }
 
-                        BufferedReader bufferedReader = new BufferedReader(
-                                new InputStreamReader(entity.getContent()));
+            future.complete(cached);
+        } catch (IOException | RuntimeException ex) {
+            future.completeExceptionally(ex);
+        } finally {
+            IN_FLIGHT.remove(api, future);
+        }
 
-                        StringBuilder out = new StringBuilder();
-                        String line;
-                        while ((line = bufferedReader.readLine()) != null) {
-                            out.append(line);
-                        }
+        return await(future);
+    }
 
-                        EntityUtils.consume(entity);
+    /**
+     * Returns the response from the disk cache if another instance of the application has written it, even if
+     * this instance's index doesn't list it yet. The index is updated to include it.
+     *
+     * @param api            API url
+     * @param key            the cache key
+     * @param requestTime    the time of current request
+     * @param maxResponseAge the maximum age of the cached response in seconds
+     * @return the cached response or null if not found or outdated
+     */
+    private static CachedResponse readFetchedElsewhere(String api, String key, long requestTime,
+            long maxResponseAge) {
+        String file = INDEX.getPath(key);
+        CacheHeader header = readHeader(key, file, CacheKey.normalize(api));
+
+        if (header == null || requestTime - header.getTime() > 1000 * maxResponseAge) {
+            return null;
+        }
 
-                        CachedResponse cachedResponse = new CachedResponse(requestTime, out.toString());
-                        try {
-                            DiskIO.write("cache/" + apiHash, cachedResponse);
-                        } catch (Exception e) {
-                            DialogUtils.showErrorDialog("Failed to save response", e);
-                        }
+        CacheIndexEntry entry = INDEX.get(key);
+        if (entry == null || entry.getTime() < header.getTime()) {
+            INDEX.put(key, header);
+        }
+        INDEX.touch(key, requestTime);
+
+        CachedResponse cached = new CachedResponse(header.getTime(), header.getLength(),
+                () -> openBody(key, file, header));
+        MEMORY_CACHE.put(key, cached);
+        return cached;
+    }
 
-                        future.complete(cachedResponse);
+    /**
+     * Stops the cache janitor, saves the cache index and releases the entry locks. Called when the application
+     * is closed.
+     */
+    public static void shutdown() {
+        JANITOR.stop();
+        try {
+            INDEX.save();
+        } catch (IOException ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+        LOCKS.close();
+    }
+
+    /**
+     * Fetches the API response once the scheduler allows it. Failed requests are retried with a growing random
+     * delay, and requests to an API that keeps failing fail immediately until its circuit breaker lets a trial
+     * request through. If the API is rate limiting, the request is retried once after the time the API asked to
+     * wait, unless that is too long.
+     *
+     * @param api            API url
+     * @param key            the cache key
+     * @param requestTime    the time of current request
+     * @param maxResponseAge how many seconds the response can be cached
+     * @param priority       the priority of the request
+     * @return the fetched response
+     * @throws IOException on failed request
+     */
+    private static CachedResponse fetch(String api, String key, long requestTime, long maxResponseAge,
+            RequestPriority priority) throws IOException {
+        String host = URI.create(api).getHost();
+        CircuitBreaker breaker = BREAKERS.computeIfAbsent(host == null ? "" : host,
+                h -> new CircuitBreaker(Constants.CIRCUIT_FAILURE_THRESHOLD, 1000 * Constants.CIRCUIT_OPEN_DURATION));
+        boolean rateLimitRetried = false;
+
+        for (int attempt = 1; ; attempt++) {
+            // Don't wait for a turn only to be refused
+            checkCircuit(host, breaker);
+            SCHEDULER.acquire(api, priority);
+
+            if (!breaker.allowRequest(System.currentTimeMillis())) {
+                checkCircuit(host, breaker);
+                throw new CircuitOpenException(host + " is being tested, try again later");
+            }
+
+            try {
+                CachedResponse response = send(api, key, requestTime, maxResponseAge);
+                breaker.recordSuccess();
+                return response;
+            } catch (RateLimitedException ex) {
+                breaker.recordSuccess(); // The API answered, it is only busy
+
+                long wait = ex.getRetryAt() - System.currentTimeMillis();
+                if (rateLimitRetried || ex.getRetryAt() < 0 || wait > 1000 * Constants.MAX_RETRY_AFTER
+                        || priority == RequestPriority.REFRESH) {
+                    throw ex;
+                }
+
+                rateLimitRetried = true;
+                attempt--;
+                System.out.println("Rate limited, retrying " + CacheKey.normalize(api) + " in " + wait + " ms");
+            } catch (IOException | RuntimeException ex) {
+                if (!isRetryable(ex)) {
+                    if (isClientError(ex)) {
+                        breaker.recordSuccess(); // The API answered, the request itself was bad
                     } else {
-                        future.completeExceptionally(
-                                new IOException(response.getCode() + " " + response.getReasonPhrase()));
+                        breaker.recordAborted(); // Interrupted or failed locally, the API didn't answer
                     }
+                    throw ex;
+                }
+
+                breaker.recordFailure(System.currentTimeMillis());
 
-                    return future;
-                });
+                if (attempt >= RETRY.getMaxAttempts()) {
+                    throw ex;
+                }
+
+                long delay = RETRY.getDelay(attempt);
+                System.out.println("Retrying " + CacheKey.normalize(api) + " in " + delay + " ms: " + ex.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while retrying " + CacheKey.normalize(api));
+                }
             }
+        }
+    }
+
+    /**
+     * Fails fast if the circuit breaker of the host is open.
+     *
+     * @param host    the API host
+     * @param breaker the circuit breaker of the host
+     * @throws CircuitOpenException if the circuit is open
+     */
+    private static void checkCircuit(String host, CircuitBreaker breaker) throws CircuitOpenException {
+        long retryAt = breaker.getRetryAt();
+
+        if (retryAt > System.currentTimeMillis()) {
+            throw new CircuitOpenException(host + " is unavailable, retrying after " + Instant.ofEpochMilli(retryAt));
+        }
+    }
 
+    /**
+     * Returns whether the failure may be transient, like a timeout, a dropped connection or a server error. Client
+     * errors like 404 are not retried, and neither is a request whose thread was interrupted.
+     *
+     * @param ex the failure
+     * @return true if the request can be retried
+     */
+    private static boolean isRetryable(Exception ex) {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (ex instanceof HttpResponseException responseException) {
+            return responseException.getStatusCode() >= 500;
+        }
+        return ex instanceof IOException;
+    }
+
+    /**
+     * Returns whether the API answered that the request itself was bad, like 404.
+     *
+     * @param ex the failure
+     * @return true if the failure is a client error response
+     */
+    private static boolean isClientError(Exception ex) {
+        return ex instanceof HttpResponseException responseException && responseException.getStatusCode() >= 400
+                && responseException.getStatusCode() < 500;
+    }
+
+    /**
+     * Sends the API request and writes the response to the disk cache.
+     *
+     * @param api            API url
+     * @param key            the cache key
+     * @param requestTime    the time of current request
+     * @param maxResponseAge how many seconds the response can be cached
+     * @return the fetched response
+     * @throws IOException on failed request
+     */
+    private static CachedResponse send(String api, String key, long requestTime, long maxResponseAge)
+            throws IOException {
+        String url = CacheKey.normalize(api);
+        String file = INDEX.getPath(key);
+        System.out.println(key + " fetching " + url);
+
+        // The pooled client decodes compressed responses transparently
+        ClassicRequestBuilder builder = ClassicRequestBuilder.get(api)
+                .setHeader(new BasicHeader("accept", "application/json"))
+                .setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        // Ask the API to only send the body if it has changed since the cached one
+        CacheHeader previous = INDEX.get(key) == null ? null : readHeader(key, file, url);
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                builder.setHeader(HttpHeaders.IF_NONE_MATCH, previous.getEtag());
+            }
+            if (previous.getLastModified() != null) {
+                builder.setHeader(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+            }
+        }
+
+        ClassicHttpRequest request = builder.build();
+
+        // Shared pooled client, must not be closed here
+        return HttpClientPool.getClient().execute(request, response -> {
+            System.out.println(response.getCode() + " " + response.getReasonPhrase());
+
+            if (response.getCode() == HttpStatus.SC_NOT_MODIFIED && previous != null) {
+                EntityUtils.consume(response.getEntity());
+                return revalidated(key, previous.refreshed(requestTime, maxResponseAge));
+            }
+
+            if (response.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS
+                    || (response.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE
+                            && response.containsHeader(HttpHeaders.RETRY_AFTER))) {
+                EntityUtils.consume(response.getEntity());
+                throw rateLimited(api, response);
+            }
+
+            if (response.getCode() != 200) {
+                EntityUtils.consume(response.getEntity());
+                throw new HttpResponseException(response.getCode(), response.getReasonPhrase());
+            }
+
+            HttpEntity entity = response.getEntity();
+
+            if (entity == null) {
+                throw new IOException("Empty response");
+            }
+
+            // Stream the (already decoded) body compressed into a temporary file as it arrives, so that it is
+            // never held in memory. The temporary file replaces the cached body once complete.
+            MEMORY_CACHE.invalidate(key);
+            CheckedInputStream content = new CheckedInputStream(entity.getContent(), new CRC32());
+            File body = DiskIO.createTemp(file + CacheIndex.BODY_SUFFIX);
+            CacheHeader header;
+            try {
+                long length;
+                try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(body), 8192)) {
+                    length = content.transferTo(outputStream);
+                }
+                EntityUtils.consume(entity);
+
+                header = new CacheHeader(url, requestTime, maxResponseAge, length, content.getChecksum().getValue(),
+                        CacheHeader.GZIP, body.length(), headerValue(response, HttpHeaders.ETAG),
+                        headerValue(response, HttpHeaders.LAST_MODIFIED));
+                commit(key, file, body, header);
+            } finally {
+                // Only left behind if the body couldn't be completed or committed
+                // noinspection ResultOfMethodCallIgnored
+                body.delete();
+            }
+
+            if (Constants.RECORD_DIRECTORY != null) {
+                record(api, file + CacheIndex.BODY_SUFFIX);
+            }
+
+            INDEX.put(key, header);
+            try {
+                INDEX.save();
+            } catch (IOException ex) {
+                // The entry itself is committed, the index is saved again on the next change or at shutdown
+                // noinspection CallToPrintStackTrace
+                ex.printStackTrace();
+            }
+            JANITOR.requestRun();
+
+            // The body is decompressed from the pending write or the cache file when the caller uses it
+            CachedResponse cachedResponse = new CachedResponse(requestTime, header.getLength(),
+                    () -> openBody(key, file, header));
+            MEMORY_CACHE.put(key, cachedResponse);
+
+            return cachedResponse;
+        });
+    }
+
+    /**
+     * Refreshes the time of a cached response the API confirmed to be up to date. Only the header is rewritten,
+     * the body is reused as is.
+     *
+     * @param key    the cache key
+     * @param header the refreshed header
+     * @return the refreshed response
+     * @throws IOException if the header couldn't be written
+     */
+    private static CachedResponse revalidated(String key, CacheHeader header) throws IOException {
+        String file = INDEX.getPath(key);
+        commit(key, file, null, header);
+        INDEX.put(key, header);
+        INDEX.save();
+
+        // Reuse the body already in memory if there is one
+        CachedResponse previous = MEMORY_CACHE.get(key, header.getTime(), Long.MAX_VALUE / 1000);
+        CachedResponse refreshed = previous != null && previous.getLength() == header.getLength()
+                ? previous.withTime(header.getTime())
+                : new CachedResponse(header.getTime(), header.getLength(), () -> openBody(key, file, header));
+
+        MEMORY_CACHE.put(key, refreshed);
+        return refreshed;
+    }
+
+    /**
+     * Writes the entry files while holding the entry's write lock. They are committed directly rather than by the
+     * background writer, so that other instances see a body and its header together once the lock is released.
+     * Both are small by now, the body has already been streamed to its temporary file.
+     *
+     * @param key    the cache key
+     * @param file   the filename of saved request without suffix
+     * @param body   temporary file of the compressed body to move in place, or null to only rewrite the header
+     * @param header the header of the cached response
+     * @throws IOException if the files couldn't be written
+     */
+    @SuppressWarnings("try")
+    private static void commit(String key, String file, File body, CacheHeader header) throws IOException {
+        try (CacheLocks.Handle ignored = LOCKS.lockWrite(key)) {
+            if (body != null) {
+                DiskIO.replace(body, file + CacheIndex.BODY_SUFFIX);
+            }
+            DiskIO.writeNow(file + CacheIndex.HEADER_SUFFIX, header);
+        }
+    }
+
+    /**
+     * Writes the fetched body uncompressed to the record directory, where {@link StandInServer} can serve it.
+     *
+     * @param api  API url
+     * @param body the compressed body file
+     */
+    private static void record(String api, String body) {
+        try (InputStream inputStream = new GZIPInputStream(DiskIO.openStream(body))) {
+            String directory = Constants.RECORD_DIRECTORY.endsWith("/") ? Constants.RECORD_DIRECTORY
+                    : Constants.RECORD_DIRECTORY + "/";
+            DiskIO.writeLater(directory + CacheKey.getFixtureKey(api) + StandInServer.FIXTURE_SUFFIX,
+                    inputStream.readAllBytes());
+            System.out.println("Recorded " + CacheKey.normalize(api));
+        } catch (IOException ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Pauses requests to the API for as long as it asked and returns the error to throw.
+     *
+     * @param api      API url
+     * @param response the 429 or 503 response
+     * @return the error describing when the request can be retried
+     */
+    private static RateLimitedException rateLimited(String api, HttpResponse response) {
+        long now = System.currentTimeMillis();
+        long retryAt = RequestScheduler.parseRetryAfter(headerValue(response, HttpHeaders.RETRY_AFTER), now);
+
+        if (retryAt < 0 && response.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS) {
+            retryAt = now + 1000 * Constants.DEFAULT_RETRY_AFTER;
+        }
+
+        if (retryAt >= 0) {
+            SCHEDULER.pause(api, retryAt);
+        }
+
+        return new RateLimitedException(response.getCode() + " " + response.getReasonPhrase(), retryAt);
+    }
+
+    /**
+     * Returns the value of the given response header.
+     *
+     * @param response the HTTP response
+     * @param name     the header name
+     * @return the header value or null if not present
+     */
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Waits for the given request to complete.
+     *
+     * @param future the pending request
+     * @return the response
+     * @throws IOException if the request failed
+     */
+    private static CachedResponse await(CompletableFuture<CachedResponse> future) throws IOException {
+        try {
             return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ex;
         }
     }
 
     /**
-     * Returns cached response or null if not found or outdated.
+     * Returns cached response or null if not found or outdated. Only the small header is read here, the body is
+     * read and verified against the header when the response is first used.
      *
-     * @param file           the filename of saved request
+     * @param key            the cache key
+     * @param file           the filename of saved request without suffix
+     * @param url            normalized API url of the request
      * @param requestTime    the time of current request
      * @param maxResponseAge the maximum age of the cached response in seconds
      * @return the cached response or null if not found, corrupted, or outdated
      */
-    private static CachedResponse readCached(String file, long requestTime, long maxResponseAge) {
-        try {
-            CachedResponse cachedResponse = (CachedResponse) DiskIO.read(file, CachedResponse.class);
+    private static CachedResponse readCached(String key, String file, String url, long requestTime,
+            long maxResponseAge) {
+        CacheHeader header = readHeader(key, file, url);
+
+        if (header == null) {
+            return null; // Not found or corrupted
+        }
+
+        long timeDiff = requestTime - header.getTime();
+
+        if (timeDiff > 1000 * maxResponseAge) {
+            return null; // Too old
+        }
+
+        return new CachedResponse(header.getTime(), header.getLength(), () -> openBody(key, file, header));
+    }
+
+    /**
+     * Returns the header of a cached response if the response is usable regardless of its age.
+     *
+     * @param key  the cache key
+     * @param file the filename of saved request without suffix
+     * @param url  normalized API url of the request
+     * @return the header or null if not found or corrupted
+     */
+    @SuppressWarnings("try")
+    private static CacheHeader readHeader(String key, String file, String url) {
+        try (CacheLocks.Handle ignored = LOCKS.lockRead(key)) {
+            CacheHeader header = (CacheHeader) DiskIO.read(file + CacheIndex.HEADER_SUFFIX, CacheHeader.class);
 
-            if (cachedResponse == null) {
+            if (header == null) {
                 return null; // Not found
             }
 
-            if (cachedResponse.getTime() == 0 || cachedResponse.getResponse() == null) {
+            if (header.getTime() == 0 || header.getLength() < 0) {
                 return null; // Corrupted
             }
 
-            long timeDiff = requestTime - cachedResponse.getTime();
+            if (!url.equals(header.getUrl())) {
+                return null; // Another url with the same file name
+            }
 
-            if (timeDiff > 1000 * maxResponseAge) {
-                return null; // Too old
+            if (DiskIO.size(file + CacheIndex.BODY_SUFFIX) != header.getStoredLength()) {
+                return null; // Body missing or truncated
             }
 
-            return cachedResponse;
+            return header;
         } catch (Exception ex) {
             // noinspection CallToPrintStackTrace
             ex.printStackTrace();
@@ -116,4 +713,107 @@ public class CachedRequest {
             return null; // Likely corrupted
         }
     }
+
+    /**
+     * Opens the cached response body for reading, decompressing it if needed. The body is verified against its
+     * header as it is read, and reading fails at the end of the body if it doesn't match.
+     *
+     * @param key    the cache key
+     * @param file   the filename of saved request without suffix
+     * @param header the header of the cached response
+     * @return the decoded body stream
+     * @throws IOException if the body couldn't be opened
+     */
+    @SuppressWarnings("try")
+    private static InputStream openBody(String key, String file, CacheHeader header) throws IOException {
+        InputStream body;
+        try (CacheLocks.Handle ignored = LOCKS.lockRead(key)) {
+            body = DiskIO.openStream(file + CacheIndex.BODY_SUFFIX);
+        }
+
+        if (body == null) {
+            throw new IOException("Cached response body not found: " + file);
+        }
+
+        if (CacheHeader.GZIP.equals(header.getEncoding())) {
+            body = new GZIPInputStream(body, 8192);
+        }
+
+        return new VerifyingInputStream(body, header.getLength(), header.getChecksum(), file);
+    }
+
+    /**
+     * Checks the length and checksum of a cached body once it has been read to the end.
+     */
+    private static class VerifyingInputStream extends FilterInputStream {
+
+        private final CRC32 crc = new CRC32();
+        private final long length;
+        private final long checksum;
+        private final String file;
+        private long count;
+
+        /**
+         * Constructs a new VerifyingInputStream.
+         *
+         * @param in       the decoded body stream
+         * @param length   the expected length of the body
+         * @param checksum the expected CRC32 checksum of the body
+         * @param file     the cache file for error messages
+         */
+        VerifyingInputStream(InputStream in, long length, long checksum, String file) {
+            super(in);
+            this.length = length;
+            this.checksum = checksum;
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                verify();
+            } else {
+                crc.update(b);
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int len) throws IOException {
+            int read = in.read(buffer, offset, len);
+            if (read < 0) {
+                verify();
+            } else {
+                crc.update(buffer, offset, read);
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must be checked too
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Checks the body read so far against the header.
+         *
+         * @throws IOException if the body doesn't match the header
+         */
+        private void verify() throws IOException {
+            if (count != length || crc.getValue() != checksum) {
+                throw new IOException("Cached response body is corrupted: " + file);
+            }
+        }
+    }
 }
@@ -1,26 +1,43 @@
 package fi.tuni.compse110.java3.io;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
-import fi.tuni.compse110.java3.adapters.CachedResponseAdapter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Represents a cached API response.
+ * Represents a cached API response. The body of a response read from the disk cache is read only when it is
+ * first used, and then streamed from the cache straight into the reader of the caller. The decoded bytes are kept
+ * as they pass, so later reads neither touch the disk nor decompress the body again. Each {@link #getResponse()}
+ * decodes a new string.
  */
-public class CachedResponse extends GsonSerializable {
-
-    private long time;
-    private String response;
+public class CachedResponse {
 
     /**
-     * Default constructor for GsonSerializable.
+     * Opens the body of a cached response.
      */
-    @SuppressWarnings("unused")
-    private CachedResponse() {
-        // For GsonSerializable, accessible only through reflection
+    @FunctionalInterface
+    public interface BodySource {
+
+        /**
+         * Opens a stream of the decoded body.
+         *
+         * @return the body stream
+         * @throws IOException if the body couldn't be opened
+         */
+        InputStream open() throws IOException;
     }
 
+    private final long time;
+    private final long length;
+    private final boolean stale;
+    private final Body body;
+
     /**
      * Constructs a new CachedResponse with the specified time and response.
      *
@@ -28,8 +45,63 @@ public class CachedResponse extends GsonSerializable {
      * @param response the response content as received from the API
      */
     public CachedResponse(long time, String response) {
+        this(time, response == null ? null : response.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Constructs a new CachedResponse with the specified time and decoded body.
+     *
+     * @param time  the time when the original request was made
+     * @param bytes the response content as UTF-8 bytes, or null if there is none
+     */
+    private CachedResponse(long time, byte[] bytes) {
+        this(time, bytes == null ? 0 : bytes.length, false, new Body(null, bytes == null ? 0 : bytes.length, bytes));
+    }
+
+    /**
+     * Constructs a new CachedResponse whose body is read from the given source when used.
+     *
+     * @param time   the time when the original request was made
+     * @param length the length of the body in bytes
+     * @param source opens the body
+     */
+    public CachedResponse(long time, long length, BodySource source) {
+        this(time, length, false, new Body(source, length, null));
+    }
+
+    /**
+     * Constructs a new CachedResponse.
+     *
+     * @param time   the time when the original request was made
+     * @param length the length of the body in bytes
+     * @param stale  whether the response is older than the caller allowed
+     * @param body   the body, shared with other copies of the response
+     */
+    private CachedResponse(long time, long length, boolean stale, Body body) {
         this.time = time;
-        this.response = response;
+        this.length = length;
+        this.stale = stale;
+        this.body = body;
+    }
+
+    /**
+     * Returns a copy of this response marked as stale. The copy shares the body of this response.
+     *
+     * @return the stale response
+     */
+    public CachedResponse asStale() {
+        return new CachedResponse(time, length, true, body);
+    }
+
+    /**
+     * Returns a copy of this response with a new request time, for a response the API confirmed to be up to date.
+     * The copy shares the body of this response.
+     *
+     * @param newTime the time of the request that revalidated the response
+     * @return the refreshed response
+     */
+    public CachedResponse withTime(long newTime) {
+        return new CachedResponse(newTime, length, false, body);
     }
 
     /**
@@ -42,24 +114,213 @@ public class CachedResponse extends GsonSerializable {
     }
 
     /**
-     * Returns the response content as received from the API.
+     * Returns whether the response is older than the caller allowed. Stale responses are only returned when
+     * requested with a {@link CachePolicy} that allows them.
+     *
+     * @return true if the response is stale
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Returns the length of the response content.
+     *
+     * @return the length of the response content in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the response content as received from the API, reading the body first if needed.
      *
      * @return the response content
+     * @throws UncheckedIOException if the body couldn't be read
      */
     public String getResponse() {
-        return response;
-    }
+        if (body.isEmpty()) {
+            return null;
+        }
 
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeAdapter(CachedResponse.class, new CachedResponseAdapter()).create();
+        try (InputStream stream = body.open()) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to load cached response", ex);
+        }
+    }
 
     /**
-     * Returns the Gson instance configured for this class.
+     * Opens a reader of the response content. On first use the body is streamed from its source, later readers
+     * read the kept bytes. The caller must close the reader.
      *
-     * @return the Gson instance
+     * @return reader of the response content
+     * @throws IOException if the body couldn't be opened
      */
-    @Override
-    public Gson getGson() {
-        return GSON;
+    public Reader openReader() throws IOException {
+        return new InputStreamReader(body.open(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The decoded body of a response, kept once it has been read from its source.
+     */
+    private static class Body {
+
+        private final BodySource source;
+        private final long length;
+        private byte[] bytes;
+        private boolean reading;
+
+        /**
+         * Constructs a new Body.
+         *
+         * @param source opens the body, or null if the bytes are given
+         * @param length the length of the decoded body in bytes
+         * @param bytes  the decoded body, or null if not read yet
+         */
+        Body(BodySource source, long length, byte[] bytes) {
+            this.source = source;
+            this.length = length;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns whether there is no body at all.
+         *
+         * @return true if neither a source nor bytes were given
+         */
+        boolean isEmpty() {
+            return source == null && bytes == null;
+        }
+
+        /**
+         * Opens a stream of the decoded body. The first stream reads the source and keeps the bytes it passes,
+         * streams opened while it is being read read the source on their own.
+         *
+         * @return the body stream
+         * @throws IOException if the source couldn't be opened
+         */
+        synchronized InputStream open() throws IOException {
+            if (bytes != null || source == null) {
+                return new ByteArrayInputStream(bytes == null ? new byte[0] : bytes);
+            }
+            if (reading || length > Integer.MAX_VALUE - 8) {
+                return source.open();
+            }
+
+            InputStream stream = source.open();
+            reading = true;
+            return new KeepingInputStream(stream);
+        }
+
+        /**
+         * Called when the stream reading the source is closed.
+         *
+         * @param read the whole decoded body, or null if it wasn't read completely
+         */
+        synchronized void readDone(byte[] read) {
+            reading = false;
+            if (read != null) {
+                bytes = read;
+            }
+        }
+
+        /**
+         * Streams the source and copies the bytes passing through into a buffer of the expected length.
+         */
+        private class KeepingInputStream extends FilterInputStream {
+
+            private final Buffer buffer = new Buffer((int) length);
+            private boolean complete;
+            private boolean broken;
+            private boolean closed;
+
+            /**
+             * Constructs a new KeepingInputStream.
+             *
+             * @param in the source stream
+             */
+            KeepingInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b < 0) {
+                    complete = true;
+                } else {
+                    buffer.write(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n < 0) {
+                    complete = true;
+                } else {
+                    buffer.write(b, off, n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Skipped bytes are not kept
+                broken = true;
+                return in.skip(n);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+
+                try {
+                    // Parsers may stop at the end of the json, read the end of the source to verify its checksum
+                    if (!complete && !broken && buffer.size() == length) {
+                        complete = in.read() < 0;
+                    }
+                } catch (IOException ex) {
+                    broken = true;
+                } finally {
+                    readDone(complete && !broken && buffer.size() == length ? buffer.getBytes() : null);
+                    in.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Byte buffer whose bytes are taken without copying when it was sized exactly.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        /**
+         * Constructs a new Buffer.
+         *
+         * @param size the expected number of bytes
+         */
+        Buffer(int size) {
+            super(size);
+        }
+
+        /**
+         * Returns the bytes written to the buffer.
+         *
+         * @return the written bytes
+         */
+        byte[] getBytes() {
+            return count == buf.length ? buf : toByteArray();
+        }
     }
 }
@@ -0,0 +1,119 @@
+package fi.tuni.compse110.java3.io;
+
+/**
+ * Stops sending requests to an upstream API that keeps failing. After enough consecutive failures the circuit
+ * opens and requests fail immediately. Once the open duration has passed, a single trial request is let through:
+ * if it succeeds the circuit closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+    /**
+     * State of the circuit.
+     */
+    public enum State {
+
+        /**
+         * Requests are sent normally.
+         */
+        CLOSED,
+
+        /**
+         * Requests fail immediately.
+         */
+        OPEN,
+
+        /**
+         * A single trial request is being sent.
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDuration;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * Constructs a new closed CircuitBreaker.
+     *
+     * @param failureThreshold how many consecutive failures open the circuit
+     * @param openDuration     how many milliseconds the circuit stays open before a trial request
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Returns whether a request can be sent now. When the open duration has passed, the first caller gets to send
+     * the trial request.
+     *
+     * @param now the current time in milliseconds
+     * @return true if the request can be sent
+     */
+    public synchronized boolean allowRequest(long now) {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (now - openedAt < openDuration) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Records a request that reached a healthy upstream, which closes the circuit.
+     */
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    /**
+     * Records a failed request, which opens the circuit after enough consecutive failures or a failed trial.
+     *
+     * @param now the current time in milliseconds
+     */
+    public synchronized void recordFailure(long now) {
+        failures++;
+
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+    }
+
+    /**
+     * Records a request that ended without an answer from the upstream, for example because it was interrupted.
+     * The health of the upstream is unknown, so only a trial request is given back to the next caller.
+     */
+    public synchronized void recordAborted() {
+        if (state == State.HALF_OPEN) {
+            // The open duration has already passed, the next caller sends the trial
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * Returns the state of the circuit.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns when the next trial request is allowed.
+     *
+     * @return the time in milliseconds, or 0 if the circuit is not open
+     */
+    public synchronized long getRetryAt() {
+        return state == State.OPEN ? openedAt + openDuration : 0;
+    }
+}
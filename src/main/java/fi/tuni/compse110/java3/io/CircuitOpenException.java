@@ -0,0 +1,20 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request to an upstream API that is considered down.
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new CircuitOpenException.
+     *
+     * @param message the error message
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
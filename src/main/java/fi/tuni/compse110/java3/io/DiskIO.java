@@ -3,13 +3,26 @@ package fi.tuni.compse110.java3.io;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Reads and writes data from/to disk.
  */
 public class DiskIO {
 
+    /**
+     * Writes json files in the background. Reads check it first so that they see what was last written.
+     */
+    private static final WriteBehindQueue WRITE_BEHIND = new WriteBehindQueue(DiskIO::commit);
+
+    static {
+        // Commit everything still queued when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(DiskIO::flush, "disk-writer-flush"));
+    }
+
     /**
      * Creates given file and its parent directories.
      * 
@@ -27,20 +40,241 @@ public class DiskIO {
     }
 
     /**
-     * Writes given object to disk as a json file serialized by Gson.
+     * Returns the key of given file in the write-behind queue.
+     *
+     * @param fileName target file
+     * @return the normalized path
+     */
+    private static String pendingKey(String fileName) {
+        return Path.of(fileName).normalize().toString();
+    }
+
+    /**
+     * Drops any background write to given file and waits for one in progress, so that the file can be written
+     * or deleted directly.
+     *
+     * @param fileName target file
+     * @throws IOException if interrupted while waiting
+     */
+    private static void cancelPending(String fileName) throws IOException {
+        try {
+            WRITE_BEHIND.cancel(pendingKey(fileName));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a write to " + fileName);
+        }
+    }
+
+    /**
+     * Writes given object to disk as a json file serialized by Gson. The object is serialized right away but
+     * written in the background; reads of the file return the new contents immediately.
      * 
      * @param outputFile target file
      * @param object     the object to write
-     * @throws IOException if file couldn't be written
+     * @throws IOException if the object couldn't be serialized, or the previous background write to the file
+     *                     failed
      */
     public static void write(String outputFile, GsonSerializable object) throws IOException {
+        writeLater(outputFile, serialize(outputFile, object));
+    }
+
+    /**
+     * Writes given object to disk as a json file serialized by Gson and waits until it has been committed, for
+     * files whose callers must know that they were written.
+     *
+     * @param outputFile target file
+     * @param object     the object to write
+     * @throws IOException if the object couldn't be serialized or the file couldn't be written
+     */
+    public static void writeNow(String outputFile, GsonSerializable object) throws IOException {
+        writeBytes(outputFile, serialize(outputFile, object));
+    }
+
+    /**
+     * Serializes given object to json with its Gson instance.
+     *
+     * @param outputFile target file for error messages
+     * @param object     the object to serialize
+     * @return the utf-8 encoded json
+     * @throws IOException if the object couldn't be serialized
+     */
+    private static byte[] serialize(String outputFile, GsonSerializable object) throws IOException {
+        try {
+            return object.getGson().toJson(object).getBytes(StandardCharsets.UTF_8);
+        } catch (RuntimeException ex) {
+            throw new IOException("Failed to serialize " + outputFile, ex);
+        }
+    }
+
+    /**
+     * Writes given bytes to disk in the background. A newer write to the same file replaces this one if it
+     * hasn't been committed yet. Reads of the file return the new contents immediately.
+     *
+     * @param outputFile target file
+     * @param data       the bytes to write, must not be modified afterwards
+     * @throws IOException if the previous background write to the file failed, the new bytes are queued
+     *                     regardless
+     */
+    public static void writeLater(String outputFile, byte[] data) throws IOException {
+        WRITE_BEHIND.submit(pendingKey(outputFile), data);
+    }
+
+    /**
+     * Writes given bytes to disk as is and waits until they have been committed.
+     *
+     * @param outputFile target file
+     * @param data       the bytes to write
+     * @throws IOException if file couldn't be written
+     */
+    public static void writeBytes(String outputFile, byte[] data) throws IOException {
+        cancelPending(outputFile);
+        commit(outputFile, data);
+    }
+
+    /**
+     * Writes given bytes to a temporary file which then replaces the target, so the target never holds
+     * partially written data.
+     *
+     * @param outputFile target file
+     * @param data       the bytes to write
+     * @throws IOException if file couldn't be written
+     */
+    private static void commit(String outputFile, byte[] data) throws IOException {
         File file = create(outputFile);
+        File temp = createTemp(file);
+
+        try (FileOutputStream outputStream = new FileOutputStream(temp)) {
+            outputStream.write(data);
+        } catch (IOException ex) {
+            // noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            throw ex;
+        }
+
+        replace(temp, file);
+    }
+
+    /**
+     * Creates a uniquely named temporary file next to the target, so that concurrent writes of the same target
+     * never share a temporary file.
+     *
+     * @param target target file
+     * @return the created empty file
+     * @throws IOException if the file couldn't be created
+     */
+    private static File createTemp(File target) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        return Files.createTempFile(parent.toPath(), target.getName() + ".", ".tmp").toFile();
+    }
+
+    /**
+     * Moves the temporary file over the target, atomically if the filesystem supports it.
+     *
+     * @param temp   the fully written temporary file
+     * @param target target file
+     * @throws IOException if the file couldn't be moved
+     */
+    private static void replace(File temp, File target) throws IOException {
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until all background writes have been committed. Called when the application is closed.
+     */
+    public static void flush() {
+        try {
+            WRITE_BEHIND.flush();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            // noinspection CallToPrintStackTrace
+            ex.printStackTrace();
+        }
+    }
 
-        try (FileWriter fileWriter = new FileWriter(file, StandardCharsets.UTF_8)) {
-            object.getGson().toJson(object, fileWriter);
+    /**
+     * Deletes given file and drops any background write to it.
+     *
+     * @param fileName target file
+     * @return true if the file existed
+     */
+    public static boolean delete(String fileName) {
+        try {
+            cancelPending(fileName);
+            return Files.deleteIfExists(Path.of(fileName));
+        } catch (IOException ex) {
+            return false;
         }
     }
 
+    /**
+     * Returns the size of given file, including writes still waiting in the background.
+     *
+     * @param fileName target file
+     * @return the size in bytes or -1 if the file does not exist
+     */
+    public static long size(String fileName) {
+        byte[] pending = WRITE_BEHIND.getPending(pendingKey(fileName));
+        if (pending != null) {
+            return pending.length;
+        }
+
+        File file = new File(fileName);
+        return file.exists() ? file.length() : -1;
+    }
+
+    /**
+     * Creates a uniquely named temporary file next to given file, to be written by the caller and then moved over
+     * the file with {@link #replace(File, String)}.
+     *
+     * @param outputFile target file
+     * @return the created empty file
+     * @throws IOException if the file couldn't be created
+     */
+    public static File createTemp(String outputFile) throws IOException {
+        return createTemp(create(outputFile));
+    }
+
+    /**
+     * Moves a fully written temporary file over given file, dropping any background write to it first, so the
+     * file never holds partially written data.
+     *
+     * @param temp       the temporary file from {@link #createTemp(String)}
+     * @param outputFile target file
+     * @throws IOException if the file couldn't be moved
+     */
+    public static void replace(File temp, String outputFile) throws IOException {
+        cancelPending(outputFile);
+        replace(temp, create(outputFile));
+    }
+
+    /**
+     * Reads all bytes of given file.
+     *
+     * @param inputFile target file
+     * @return the file contents or null if file does not exist
+     * @throws IOException if file couldn't be read
+     */
+    public static byte[] readBytes(String inputFile) throws IOException {
+        byte[] pending = WRITE_BEHIND.getPending(pendingKey(inputFile));
+        if (pending != null) {
+            return pending.clone();
+        }
+
+        Path path = Path.of(inputFile);
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        return Files.readAllBytes(path);
+    }
+
     /**
      * Reads given json file as object of given type.
      * 
@@ -53,22 +287,68 @@ public class DiskIO {
     public static GsonSerializable read(String inputFile, Class<? extends GsonSerializable> type)
             throws IOException, Exception {
 
-        String contents = readFromDisk(inputFile);
-        if (contents == null) {
-            return null;
-        }
+        try (Reader reader = openReader(inputFile)) {
+            if (reader == null) {
+                return null;
+            }
 
-        try {
             Constructor<?> constructor = type.getDeclaredConstructor();
             constructor.setAccessible(true);
             GsonSerializable instance = (GsonSerializable) constructor.newInstance();
 
-            return instance.getGson().fromJson(contents, type);
+            // Gson parses straight from the file without building the whole json string first
+            return instance.getGson().fromJson(reader, type);
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Opens given file for reading. The caller must close the stream.
+     *
+     * @param inputFile target file
+     * @return buffered stream of the file or null if file does not exist
+     * @throws IOException if file couldn't be opened
+     */
+    public static InputStream openStream(String inputFile) throws IOException {
+        byte[] pending = WRITE_BEHIND.getPending(pendingKey(inputFile));
+        if (pending != null) {
+            return new ByteArrayInputStream(pending);
+        }
+
+        Path path = Path.of(inputFile);
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        return new BufferedInputStream(Files.newInputStream(path));
+    }
+
+    /**
+     * Opens given file for reading as utf-8 text. The caller must close the reader.
+     *
+     * @param inputFile target file
+     * @return buffered reader of the file or null if file does not exist
+     * @throws IOException if file couldn't be opened
+     */
+    public static Reader openReader(String inputFile) throws IOException {
+        byte[] pending = WRITE_BEHIND.getPending(pendingKey(inputFile));
+        if (pending != null) {
+            return new InputStreamReader(new ByteArrayInputStream(pending), StandardCharsets.UTF_8);
+        }
+
+        Path path = Path.of(inputFile);
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
     /**
      * Reads file contents from disk as utf-8 string.
      * 
@@ -76,21 +356,18 @@ public class DiskIO {
      * @return string or null if file does not exist
      * @throws IOException if file couldn't be read
      */
-    private static String readFromDisk(String inputFile) throws IOException {
-        File file = new File(inputFile);
-
-        if (!file.exists()) {
-            return null;
+    public static String readFromDisk(String inputFile) throws IOException {
+        byte[] pending = WRITE_BEHIND.getPending(pendingKey(inputFile));
+        if (pending != null) {
+            return new String(pending, StandardCharsets.UTF_8);
         }
 
-        try (Scanner scanner = new Scanner(file, StandardCharsets.UTF_8)) {
-            StringBuilder out = new StringBuilder();
+        Path path = Path.of(inputFile);
 
-            while (scanner.hasNext()) {
-                out.append(scanner.nextLine());
-            }
-
-            return out.toString();
+        if (!Files.exists(path)) {
+            return null;
         }
+
+        return Files.readString(path, StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,35 @@
+package fi.tuni.compse110.java3.io;
+
+import java.util.Comparator;
+
+/**
+ * Order in which the cache janitor evicts entries once the cache is over its size limit.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Least recently used entries are evicted first.
+     */
+    LRU(Comparator.comparingLong(CacheIndexEntry::getLastAccess)),
+
+    /**
+     * Least frequently used entries are evicted first, ties broken by least recent use.
+     */
+    LFU(Comparator.comparingInt(CacheIndexEntry::getAccessCount)
+            .thenComparingLong(CacheIndexEntry::getLastAccess));
+
+    private final Comparator<CacheIndexEntry> order;
+
+    EvictionPolicy(Comparator<CacheIndexEntry> order) {
+        this.order = order;
+    }
+
+    /**
+     * Returns the eviction order of this policy, first evicted first.
+     *
+     * @return the eviction order
+     */
+    public Comparator<CacheIndexEntry> getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,193 @@
+package fi.tuni.compse110.java3.io;
+
+import fi.tuni.compse110.java3.utility.Constants;
+
+/**
+ * Connection pool and timeout settings for the shared HTTP client.
+ */
+public class HttpClientConfig {
+
+    private final int maxConnectionsTotal;
+    private final int maxConnectionsPerHost;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int keepAlive;
+    private final int idleEviction;
+
+    /**
+     * Constructs a new HttpClientConfig. Use {@link #builder()} instead.
+     *
+     * @param maxConnectionsTotal   maximum number of pooled connections in total
+     * @param maxConnectionsPerHost maximum number of pooled connections per host
+     * @param connectTimeout        connect timeout in seconds
+     * @param readTimeout           read timeout in seconds
+     * @param keepAlive             how long an idle connection is kept alive in seconds
+     * @param idleEviction          idle time in seconds after which connections are evicted
+     */
+    private HttpClientConfig(int maxConnectionsTotal, int maxConnectionsPerHost, int connectTimeout,
+            int readTimeout, int keepAlive, int idleEviction) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.keepAlive = keepAlive;
+        this.idleEviction = idleEviction;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections in total.
+     *
+     * @return the maximum number of pooled connections
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections per host.
+     *
+     * @return the maximum number of pooled connections per host
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Returns the connect timeout.
+     *
+     * @return the connect timeout in seconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the read timeout.
+     *
+     * @return the read timeout in seconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Returns how long an idle connection is kept alive.
+     *
+     * @return the keep-alive time in seconds
+     */
+    public int getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Returns the idle time after which connections are evicted from the pool.
+     *
+     * @return the idle eviction time in seconds
+     */
+    public int getIdleEviction() {
+        return idleEviction;
+    }
+
+    /**
+     * Returns a new HttpClientConfigBuilder instance.
+     *
+     * @return a new HttpClientConfigBuilder instance
+     */
+    public static HttpClientConfigBuilder builder() {
+        return new HttpClientConfigBuilder();
+    }
+
+    /**
+     * Builder class for HttpClientConfig. Unset values default to the ones in {@link Constants}.
+     */
+    public static class HttpClientConfigBuilder {
+
+        private int maxConnectionsTotal = Constants.HTTP_MAX_CONNECTIONS_TOTAL;
+        private int maxConnectionsPerHost = Constants.HTTP_MAX_CONNECTIONS_PER_HOST;
+        private int connectTimeout = Constants.HTTP_CONNECT_TIMEOUT;
+        private int readTimeout = Constants.HTTP_READ_TIMEOUT;
+        private int keepAlive = Constants.HTTP_KEEP_ALIVE;
+        private int idleEviction = Constants.HTTP_IDLE_EVICTION;
+
+        /**
+         * Builds and returns a HttpClientConfig object.
+         *
+         * @return a new HttpClientConfig object
+         * @throws IllegalArgumentException if any of the values is not positive
+         */
+        public HttpClientConfig build() {
+            if (maxConnectionsTotal <= 0 || maxConnectionsPerHost <= 0 || connectTimeout <= 0 || readTimeout <= 0
+                    || keepAlive <= 0 || idleEviction <= 0) {
+                throw new IllegalArgumentException("HTTP client settings must be positive");
+            }
+            return new HttpClientConfig(maxConnectionsTotal, Math.min(maxConnectionsPerHost, maxConnectionsTotal),
+                    connectTimeout, readTimeout, keepAlive, idleEviction);
+        }
+
+        /**
+         * Sets the maximum number of pooled connections in total.
+         *
+         * @param maxConnectionsTotal the maximum number of pooled connections
+         * @return the current HttpClientConfigBuilder instance
+         */
+        public HttpClientConfigBuilder maxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections per host.
+         *
+         * @param maxConnectionsPerHost the maximum number of pooled connections per host
+         * @return the current HttpClientConfigBuilder instance
+         */
+        public HttpClientConfigBuilder maxConnectionsPerHost(int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the connect timeout.
+         *
+         * @param connectTimeout the connect timeout in seconds
+         * @return the current HttpClientConfigBuilder instance
+         */
+        public HttpClientConfigBuilder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the read timeout.
+         *
+         * @param readTimeout the read timeout in seconds
+         * @return the current HttpClientConfigBuilder instance
+         */
+        public HttpClientConfigBuilder readTimeout(int readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept alive.
+         *
+         * @param keepAlive the keep-alive time in seconds
+         * @return the current HttpClientConfigBuilder instance
+         */
+        public HttpClientConfigBuilder keepAlive(int keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Sets the idle time after which connections are evicted from the pool.
+         *
+         * @param idleEviction the idle eviction time in seconds
+         * @return the current HttpClientConfigBuilder instance
+         */
+        public HttpClientConfigBuilder idleEviction(int idleEviction) {
+            this.idleEviction = idleEviction;
+            return this;
+        }
+    }
+}
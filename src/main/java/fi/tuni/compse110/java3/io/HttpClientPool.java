@@ -0,0 +1,95 @@
+package fi.tuni.compse110.java3.io;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Owns the long-lived, connection-pooled HTTP client shared by all API requests.
+ * Reusing connections avoids paying TCP and TLS setup for every request.
+ */
+public class HttpClientPool {
+
+    private static HttpClientConfig config = HttpClientConfig.builder().build();
+
+    private static CloseableHttpClient client;
+
+    private HttpClientPool() {
+    }
+
+    /**
+     * Sets the settings used for the shared client. If the client has already been created,
+     * it is closed and a new one is created with the new settings on next use.
+     *
+     * @param newConfig the new client settings
+     */
+    public static synchronized void configure(HttpClientConfig newConfig) {
+        config = newConfig;
+        shutdown();
+    }
+
+    /**
+     * Returns the shared HTTP client, creating it on first use.
+     *
+     * @return the shared HTTP client
+     */
+    public static synchronized CloseableHttpClient getClient() {
+        if (client == null) {
+            client = create(config);
+        }
+        return client;
+    }
+
+    /**
+     * Closes the shared client and its pooled connections. A new client is created if
+     * {@link #getClient()} is called afterwards.
+     */
+    public static synchronized void shutdown() {
+        if (client != null) {
+            client.close(CloseMode.GRACEFUL);
+            client = null;
+        }
+    }
+
+    /**
+     * Creates a pooled HTTP client with the given settings.
+     *
+     * @param config the client settings
+     * @return the created client
+     */
+    private static CloseableHttpClient create(HttpClientConfig config) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(config.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.ofSeconds(config.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(config.getIdleEviction()))
+                        .build())
+                .build();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofSeconds(config.getConnectTimeout()))
+                .setResponseTimeout(Timeout.ofSeconds(config.getReadTimeout()))
+                // Used by the default keep-alive strategy when the server doesn't say otherwise
+                .setConnectionKeepAlive(TimeValue.ofSeconds(config.getKeepAlive()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // CachedRequest retries with its own policy and rate limiting
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(config.getIdleEviction(), TimeUnit.SECONDS))
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package fi.tuni.compse110.java3.io;
+
+/**
+ * Request quota of an upstream API.
+ */
+public class RateLimit {
+
+    private final int requestsPerMinute;
+    private final int burst;
+
+    /**
+     * Constructs a new RateLimit.
+     *
+     * @param requestsPerMinute how many requests can be sent per minute on average
+     * @param burst             how many requests can be sent at once after being idle
+     */
+    public RateLimit(int requestsPerMinute, int burst) {
+        if (requestsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate limit must be positive");
+        }
+        this.requestsPerMinute = requestsPerMinute;
+        this.burst = burst;
+    }
+
+    /**
+     * Returns how many requests can be sent per minute on average.
+     *
+     * @return the requests per minute
+     */
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    /**
+     * Returns how many requests can be sent at once after being idle.
+     *
+     * @return the burst size
+     */
+    public int getBurst() {
+        return burst;
+    }
+}
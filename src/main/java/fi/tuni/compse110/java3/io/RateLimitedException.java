@@ -0,0 +1,33 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an API refuses a request because its quota has been used up.
+ */
+public class RateLimitedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAt;
+
+    /**
+     * Constructs a new RateLimitedException.
+     *
+     * @param message the error message
+     * @param retryAt the time in milliseconds when the request can be retried, or -1 if unknown
+     */
+    public RateLimitedException(String message, long retryAt) {
+        super(message);
+        this.retryAt = retryAt;
+    }
+
+    /**
+     * Returns the time when the request can be retried.
+     *
+     * @return the time in milliseconds, or -1 if unknown
+     */
+    public long getRetryAt() {
+        return retryAt;
+    }
+}
@@ -0,0 +1,23 @@
+package fi.tuni.compse110.java3.io;
+
+/**
+ * Priority of an API request waiting for its turn in the {@link RequestScheduler}. Requests with a higher priority
+ * are sent first when the rate limit doesn't allow sending everything at once.
+ */
+public enum RequestPriority {
+
+    /**
+     * The user is waiting for the response, e.g. to draw a chart.
+     */
+    INTERACTIVE,
+
+    /**
+     * Data that is likely needed soon, fetched ahead of time.
+     */
+    PREFETCH,
+
+    /**
+     * Background refresh of a cached response that can still be used.
+     */
+    REFRESH
+}
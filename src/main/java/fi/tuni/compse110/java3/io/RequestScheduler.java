@@ -0,0 +1,269 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Spaces out API requests so that they stay within the quota of each upstream API. Requests to the same host
+ * wait in a bounded queue ordered by {@link RequestPriority} and are let through as the host's token buckets
+ * allow. When an API responds with Retry-After, the host is paused until then.
+ */
+public class RequestScheduler {
+
+    private final Map<String, RateLimit> limits;
+    private final RateLimit defaultLimit;
+    private final int maxQueued;
+    private final LongSupplier clock;
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new RequestScheduler.
+     *
+     * @param limits       quotas by host (e.g. "api.metals.dev") or by host and endpoint
+     *                     (e.g. "api.metals.dev/timeseries"), endpoint quotas apply in addition to the host quota
+     * @param defaultLimit quota of hosts not listed in limits
+     * @param maxQueued    how many requests can wait for their turn per host
+     */
+    public RequestScheduler(Map<String, RateLimit> limits, RateLimit defaultLimit, int maxQueued) {
+        this(limits, defaultLimit, maxQueued, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new RequestScheduler that reads the time from the given clock.
+     *
+     * @param limits       quotas by host or by host and endpoint
+     * @param defaultLimit quota of hosts not listed in limits
+     * @param maxQueued    how many requests can wait for their turn per host
+     * @param clock        the current time in milliseconds
+     */
+    public RequestScheduler(Map<String, RateLimit> limits, RateLimit defaultLimit, int maxQueued,
+            LongSupplier clock) {
+        this.limits = Map.copyOf(limits);
+        this.defaultLimit = defaultLimit;
+        this.maxQueued = maxQueued;
+        this.clock = clock;
+    }
+
+    /**
+     * Waits until the request is allowed to be sent.
+     *
+     * @param url      the API url
+     * @param priority the priority of the request
+     * @throws IOException if too many requests to the host are already waiting or the wait was interrupted
+     */
+    public void acquire(String url, RequestPriority priority) throws IOException {
+        getQueue(url).acquire(CacheKey.getEndpoint(url), priority);
+    }
+
+    /**
+     * Stops sending requests to the url's host until the given time.
+     *
+     * @param url   the API url
+     * @param until the time in milliseconds when requests can be sent again
+     */
+    public void pause(String url, long until) {
+        getQueue(url).pause(until);
+    }
+
+    /**
+     * Returns how many requests to the url's host are waiting for their turn.
+     *
+     * @param url the API url
+     * @return the number of waiting requests
+     */
+    public int getWaiting(String url) {
+        return getQueue(url).getWaiting();
+    }
+
+    /**
+     * Parses the value of a Retry-After header, which is either a number of seconds or an HTTP date.
+     *
+     * @param value the header value
+     * @param now   the current time in milliseconds
+     * @return the time in milliseconds when the request can be retried, or -1 if the value couldn't be parsed
+     */
+    public static long parseRetryAfter(String value, long now) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+
+        try {
+            return now + Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException ignored) {
+            // Not seconds, try a date
+        }
+
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the queue of the url's host, creating it on first use.
+     *
+     * @param url the API url
+     * @return the host queue
+     */
+    private HostQueue getQueue(String url) {
+        String host = URI.create(url).getHost();
+        return hosts.computeIfAbsent(host == null ? "" : host, this::createQueue);
+    }
+
+    /**
+     * Creates the queue of a host with the host's quotas.
+     *
+     * @param host the host name
+     * @return the created queue
+     */
+    private HostQueue createQueue(String host) {
+        Map<String, TokenBucket> endpointBuckets = new HashMap<>();
+        for (Map.Entry<String, RateLimit> limit : limits.entrySet()) {
+            if (limit.getKey().startsWith(host + "/")) {
+                endpointBuckets.put(limit.getKey().substring(host.length() + 1), new TokenBucket(limit.getValue()));
+            }
+        }
+
+        return new HostQueue(host, new TokenBucket(limits.getOrDefault(host, defaultLimit)), endpointBuckets,
+                maxQueued, clock);
+    }
+
+    /**
+     * Requests to a single host waiting for their turn.
+     */
+    private static class HostQueue {
+
+        private final String host;
+        private final TokenBucket bucket;
+        private final Map<String, TokenBucket> endpointBuckets;
+        private final int maxQueued;
+        private final LongSupplier clock;
+        private final PriorityQueue<Ticket> waiting = new PriorityQueue<>();
+        private long sequence;
+        private long pausedUntil;
+
+        /**
+         * Constructs a new HostQueue.
+         *
+         * @param host            the host name
+         * @param bucket          the quota of the whole host
+         * @param endpointBuckets additional quotas of single endpoints
+         * @param maxQueued       how many requests can wait for their turn
+         * @param clock           the current time in milliseconds
+         */
+        HostQueue(String host, TokenBucket bucket, Map<String, TokenBucket> endpointBuckets, int maxQueued,
+                LongSupplier clock) {
+            this.host = host;
+            this.bucket = bucket;
+            this.endpointBuckets = endpointBuckets;
+            this.maxQueued = maxQueued;
+            this.clock = clock;
+        }
+
+        /**
+         * Returns how many requests are waiting for their turn.
+         *
+         * @return the number of waiting requests
+         */
+        synchronized int getWaiting() {
+            return waiting.size();
+        }
+
+        /**
+         * Waits until the request is first in line and the quotas allow sending it.
+         *
+         * @param endpoint the endpoint of the request
+         * @param priority the priority of the request
+         * @throws IOException if the queue is full or the wait was interrupted
+         */
+        synchronized void acquire(String endpoint, RequestPriority priority) throws IOException {
+            if (waiting.size() >= maxQueued) {
+                throw new IOException("Too many requests waiting for " + host);
+            }
+
+            Ticket ticket = new Ticket(priority, sequence++);
+            waiting.add(ticket);
+
+            try {
+                while (true) {
+                    if (waiting.peek() != ticket) {
+                        wait();
+                        continue;
+                    }
+
+                    long now = clock.getAsLong();
+                    TokenBucket endpointBucket = endpointBuckets.get(endpoint);
+                    long delay = Math.max(pausedUntil - now, bucket.getWait(now));
+                    if (endpointBucket != null) {
+                        delay = Math.max(delay, endpointBucket.getWait(now));
+                    }
+
+                    if (delay <= 0) {
+                        bucket.tryAcquire(now);
+                        if (endpointBucket != null) {
+                            endpointBucket.tryAcquire(now);
+                        }
+                        return;
+                    }
+
+                    wait(delay);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + host);
+            } finally {
+                waiting.remove(ticket);
+                notifyAll();
+            }
+        }
+
+        /**
+         * Stops letting requests through until the given time.
+         *
+         * @param until the time in milliseconds when requests can be sent again
+         */
+        synchronized void pause(long until) {
+            if (until > pausedUntil) {
+                pausedUntil = until;
+                bucket.drain(clock.getAsLong());
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Place of a request in a host queue. Higher priority first, then in arrival order.
+     */
+    private static class Ticket implements Comparable<Ticket> {
+
+        private final RequestPriority priority;
+        private final long sequence;
+
+        /**
+         * Constructs a new Ticket.
+         *
+         * @param priority the request priority
+         * @param sequence the arrival order
+         */
+        Ticket(RequestPriority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int order = priority.compareTo(other.priority);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package fi.tuni.compse110.java3.io;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded in-memory LRU cache of API responses keyed by their cache key. Sits in front of the disk cache so
+ * that repeated requests in one session don't need to touch the filesystem.
+ */
+public class ResponseMemoryCache {
+
+    /**
+     * Rough per-entry overhead of the map entry, key and response objects in bytes.
+     */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+    private long usedBytes;
+
+    /**
+     * Entries in access order, least recently used first.
+     */
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructs a new ResponseMemoryCache.
+     *
+     * @param maxBytes the maximum estimated size of cached responses in bytes
+     */
+    public ResponseMemoryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns cached response or null if not found or outdated.
+     *
+     * @param key            the cache key
+     * @param requestTime    the time of current request
+     * @param maxResponseAge the maximum age of the cached response in seconds
+     * @return the cached response or null if not found or outdated
+     */
+    public synchronized CachedResponse get(String key, long requestTime, long maxResponseAge) {
+        CachedResponse cachedResponse = entries.get(key);
+
+        if (cachedResponse == null || requestTime - cachedResponse.getTime() > 1000 * maxResponseAge) {
+            return null;
+        }
+
+        return cachedResponse;
+    }
+
+    /**
+     * Stores the response, replacing any previous response for the key. Least recently used responses are
+     * dropped until the cache fits its size limit.
+     *
+     * @param key      the cache key
+     * @param response the response to store
+     */
+    public synchronized void put(String key, CachedResponse response) {
+        invalidate(key);
+
+        long size = sizeOf(key, response);
+        if (size > maxBytes) {
+            return; // Would evict everything else and still not fit
+        }
+
+        entries.put(key, response);
+        usedBytes += size;
+
+        Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedResponse> eldest = iterator.next();
+            usedBytes -= sizeOf(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes the response for the key if cached.
+     *
+     * @param key the cache key
+     */
+    public synchronized void invalidate(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= sizeOf(key, removed);
+        }
+    }
+
+    /**
+     * Returns the estimated size of all cached responses.
+     *
+     * @return the estimated size in bytes
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Estimates the memory used by a cached response. The body is counted at its full length, as a response
+     * keeps its decoded UTF-8 bytes once it has been read.
+     *
+     * @param key      the cache key
+     * @param response the cached response
+     * @return the estimated size in bytes
+     */
+    private static long sizeOf(String key, CachedResponse response) {
+        return ENTRY_OVERHEAD + 2L * key.length() + response.getLength();
+    }
+}
@@ -0,0 +1,62 @@
+package fi.tuni.compse110.java3.io;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How failed idempotent requests are retried. The delay before each retry grows exponentially and is randomized
+ * ("full jitter") so that clients failing at the same time don't retry at the same time.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+
+    /**
+     * Constructs a new RetryPolicy.
+     *
+     * @param maxAttempts how many times a request is sent at most, including the first attempt
+     * @param baseDelay   the upper bound of the first delay in milliseconds
+     * @param maxDelay    the upper bound of any delay in milliseconds
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay) {
+        if (maxAttempts < 1 || baseDelay < 0 || maxDelay < baseDelay) {
+            throw new IllegalArgumentException("Invalid retry policy");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Returns how many times a request is sent at most, including the first attempt.
+     *
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns a random delay before retrying after the given failed attempt.
+     *
+     * @param attempt the number of the failed attempt, starting from 1
+     * @return the delay in milliseconds
+     */
+    public long getDelay(int attempt) {
+        return getDelay(attempt, ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Returns the delay before retrying after the given failed attempt.
+     *
+     * @param attempt the number of the failed attempt, starting from 1
+     * @param random  a random number between 0 (inclusive) and 1 (exclusive)
+     * @return the delay in milliseconds
+     */
+    public long getDelay(int attempt, double random) {
+        // Doubles every attempt, shift capped so that it can't overflow
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 30));
+        return (long) (ceiling * random);
+    }
+}
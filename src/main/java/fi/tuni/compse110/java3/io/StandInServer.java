@@ -0,0 +1,380 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the CoinGecko and metals.dev APIs. Serves responses recorded by {@link CachedRequest} in
+ * record mode, with configurable latency, bandwidth, error rate and rate limiting, so that fetching can be tested
+ * and measured without the real APIs.
+ * <p>
+ * To run the application against it, start the server with
+ * {@code java -cp <classpath> fi.tuni.compse110.java3.io.StandInServer <fixture directory> [port]}
+ * and the application with {@code mvn javafx:run@offline}.
+ */
+public class StandInServer {
+
+    /**
+     * Suffix of recorded response files in the fixture directory.
+     */
+    public static final String FIXTURE_SUFFIX = ".json";
+
+    /**
+     * Port used when running the server from the command line without a port.
+     */
+    public static final int DEFAULT_PORT = 8089;
+
+    private final String fixtureDirectory;
+    private final int port;
+    private final long latency;
+    private final long bandwidth;
+    private final double errorRate;
+    private final TokenBucket rateLimit;
+    private final LongSupplier clock;
+    private final Random random;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a new StandInServer. Use {@link #builder()} instead.
+     *
+     * @param fixtureDirectory the directory of recorded responses
+     * @param port             the port to listen on, 0 for any free port
+     * @param latency          delay before each response in milliseconds
+     * @param bandwidth        response bytes sent per second, 0 for unlimited
+     * @param errorRate        share of requests answered with 500, between 0 and 1
+     * @param rateLimit        quota after which requests are answered with 429, or null for no limit
+     * @param clock            the current time in milliseconds, used for the rate limit
+     * @param seed             seed of the random errors
+     */
+    private StandInServer(String fixtureDirectory, int port, long latency, long bandwidth, double errorRate,
+            RateLimit rateLimit, LongSupplier clock, long seed) {
+        this.fixtureDirectory = fixtureDirectory;
+        this.port = port;
+        this.latency = latency;
+        this.bandwidth = bandwidth;
+        this.errorRate = errorRate;
+        this.rateLimit = rateLimit == null ? null : new TokenBucket(rateLimit);
+        this.clock = clock;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Starts serving requests.
+     *
+     * @throws IOException if the port couldn't be opened
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Stops serving requests.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public synchronized int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the address of the server, to be used in place of the API hosts.
+     *
+     * @return the base url ending with a slash
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort() + "/";
+    }
+
+    /**
+     * Returns how many requests the server has received, including refused ones.
+     *
+     * @return the request count
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Answers a single request.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the response couldn't be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+
+            if (rateLimit != null) {
+                long wait = rateLimit.tryAcquire(clock.getAsLong());
+                if (wait > 0) {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf((wait + 999) / 1000));
+                    exchange.sendResponseHeaders(429, -1);
+                    return;
+                }
+            }
+
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            String key = CacheKey.getFixtureKey("http://stand-in" + exchange.getRequestURI());
+            byte[] body = DiskIO.readBytes(fixtureDirectory + key + FIXTURE_SUFFIX);
+
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            CRC32 checksum = new CRC32();
+            checksum.update(body);
+            String etag = "\"" + Long.toHexString(checksum.getValue()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+                    outputStream.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            send(exchange.getResponseBody(), body);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends the body, throttled to the configured bandwidth.
+     *
+     * @param out  the response stream
+     * @param body the body to send
+     * @throws IOException          if the body couldn't be sent
+     * @throws InterruptedException if interrupted while throttling
+     */
+    private void send(OutputStream out, byte[] body) throws IOException, InterruptedException {
+        if (bandwidth <= 0) {
+            out.write(body);
+            return;
+        }
+
+        // Ten chunks per second at most
+        int chunk = (int) Math.max(1, Math.min(body.length, bandwidth / 10));
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            int length = Math.min(chunk, body.length - offset);
+            out.write(body, offset, length);
+            out.flush();
+            Thread.sleep(length * 1000L / bandwidth);
+        }
+    }
+
+    /**
+     * Runs the server until the process is stopped. The first argument is the fixture directory and the optional
+     * second one the port. Latency, bandwidth, error rate and rate limit are read from the system properties
+     * "standin.latency" (milliseconds), "standin.bandwidth" (bytes per second), "standin.errorRate" (0 to 1) and
+     * "standin.rateLimit" (requests per minute).
+     *
+     * @param args the command line arguments
+     * @throws IOException if the port couldn't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: StandInServer <fixture directory> [port]");
+            return;
+        }
+
+        int rateLimit = Integer.getInteger("standin.rateLimit", 0);
+        StandInServer server = builder()
+                .fixtureDirectory(args[0])
+                .port(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT)
+                .latency(Long.getLong("standin.latency", 0L))
+                .bandwidth(Long.getLong("standin.bandwidth", 0L))
+                .errorRate(Double.parseDouble(System.getProperty("standin.errorRate", "0")))
+                .rateLimit(rateLimit > 0 ? new RateLimit(rateLimit, Math.max(1, rateLimit / 6)) : null)
+                .build();
+
+        server.start();
+        System.out.println("Serving " + args[0] + " at " + server.getBaseUrl());
+    }
+
+    /**
+     * Returns a new StandInServerBuilder instance.
+     *
+     * @return a new StandInServerBuilder instance
+     */
+    public static StandInServerBuilder builder() {
+        return new StandInServerBuilder();
+    }
+
+    /**
+     * Builder class for StandInServer. By default the server answers immediately and never fails.
+     */
+    public static class StandInServerBuilder {
+
+        private String fixtureDirectory = "fixtures/";
+        private int port;
+        private long latency;
+        private long bandwidth;
+        private double errorRate;
+        private RateLimit rateLimit;
+        private LongSupplier clock = System::currentTimeMillis;
+        private long seed;
+
+        /**
+         * Builds and returns a StandInServer object.
+         *
+         * @return a new StandInServer object
+         * @throws IllegalArgumentException if any of the values is out of range
+         */
+        public StandInServer build() {
+            if (port < 0 || latency < 0 || bandwidth < 0 || errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("Invalid stand-in server settings");
+            }
+            String directory = fixtureDirectory.endsWith("/") ? fixtureDirectory : fixtureDirectory + "/";
+            return new StandInServer(directory, port, latency, bandwidth, errorRate, rateLimit, clock, seed);
+        }
+
+        /**
+         * Sets the directory of recorded responses.
+         *
+         * @param fixtureDirectory the fixture directory
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder fixtureDirectory(String fixtureDirectory) {
+            this.fixtureDirectory = fixtureDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the port to listen on.
+         *
+         * @param port the port, 0 for any free port
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the delay before each response.
+         *
+         * @param latency the delay in milliseconds
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder latency(long latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Sets how fast response bodies are sent.
+         *
+         * @param bandwidth the bytes sent per second, 0 for unlimited
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder bandwidth(long bandwidth) {
+            this.bandwidth = bandwidth;
+            return this;
+        }
+
+        /**
+         * Sets the share of requests answered with 500.
+         *
+         * @param errorRate the error rate between 0 and 1
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * Sets the quota after which requests are answered with 429 and Retry-After.
+         *
+         * @param rateLimit the quota, or null for no limit
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder rateLimit(RateLimit rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * Sets where the time used for the rate limit is read from, so that tests can control it.
+         *
+         * @param clock the current time in milliseconds
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the random errors so that runs can be repeated.
+         *
+         * @param seed the random seed
+         * @return the current StandInServerBuilder instance
+         */
+        public StandInServerBuilder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fi.tuni.compse110.java3.io;
+
+/**
+ * Token bucket enforcing a {@link RateLimit}. Tokens are refilled at a steady rate up to the burst size and every
+ * request takes one token.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerMilli;
+    private double tokens;
+    private long lastRefill = -1;
+
+    /**
+     * Constructs a new full TokenBucket.
+     *
+     * @param limit the rate limit to enforce
+     */
+    public TokenBucket(RateLimit limit) {
+        this.capacity = limit.getBurst();
+        this.tokensPerMilli = limit.getRequestsPerMinute() / 60000.0;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param now the current time in milliseconds
+     * @return 0 if a token was taken, otherwise how many milliseconds until the next token is available
+     */
+    public synchronized long tryAcquire(long now) {
+        long wait = getWait(now);
+
+        if (wait == 0) {
+            tokens -= 1;
+        }
+
+        return wait;
+    }
+
+    /**
+     * Returns how long until a token is available without taking it.
+     *
+     * @param now the current time in milliseconds
+     * @return 0 if a token is available, otherwise how many milliseconds until the next token is available
+     */
+    public synchronized long getWait(long now) {
+        refill(now);
+
+        if (tokens >= 1) {
+            return 0;
+        }
+
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerMilli));
+    }
+
+    /**
+     * Empties the bucket, e.g. when the API says the quota has been used up.
+     *
+     * @param now the current time in milliseconds
+     */
+    public synchronized void drain(long now) {
+        refill(now);
+        tokens = 0;
+    }
+
+    /**
+     * Adds the tokens accumulated since the last refill.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void refill(long now) {
+        if (lastRefill >= 0 && now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMilli);
+        }
+        if (now > lastRefill) {
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package fi.tuni.compse110.java3.io;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes files on a dedicated background thread so that callers don't wait for the disk. Pending writes to the
+ * same file are coalesced, only the latest data is written. Until a write has been committed its data is
+ * available through {@link #getPending(String)}, so readers never see an older file than what was written.
+ * <p>
+ * A failed write is kept, with its data still readable, until it is reported by {@link #flush(String)},
+ * {@link #flush()} or the next {@link #submit(String, byte[])} to the same file.
+ */
+public class WriteBehindQueue {
+
+    /**
+     * Pending writes by file name in submission order. Guarded by this.
+     */
+    private final Map<String, byte[]> pending = new LinkedHashMap<>();
+
+    /**
+     * Writes that failed and haven't been reported yet, by file name. Guarded by this.
+     */
+    private final Map<String, Failure> failed = new LinkedHashMap<>();
+
+    /**
+     * The file the writer thread is currently writing, or null. Guarded by this.
+     */
+    private String writing;
+
+    private final Writer writer;
+
+    private Thread thread;
+
+    /**
+     * Commits the data of a single file.
+     */
+    @FunctionalInterface
+    public interface Writer {
+
+        /**
+         * Writes the data to the given file.
+         *
+         * @param file the target file
+         * @param data the data to write
+         * @throws IOException if the file couldn't be written
+         */
+        void write(String file, byte[] data) throws IOException;
+    }
+
+    /**
+     * Data of a failed write and the reason it failed.
+     */
+    private static class Failure {
+
+        private final byte[] data;
+        private final Exception cause;
+
+        /**
+         * Constructs a new Failure.
+         *
+         * @param data  the data that couldn't be written
+         * @param cause the reason
+         */
+        Failure(byte[] data, Exception cause) {
+            this.data = data;
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Constructs a new WriteBehindQueue.
+     *
+     * @param writer commits the data of a single file
+     */
+    public WriteBehindQueue(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Queues the data to be written to the given file, replacing any data still waiting to be written to it.
+     *
+     * @param file the target file
+     * @param data the data to write, must not be modified afterwards
+     * @throws IOException if the previous write to the file failed, the new data is queued regardless
+     */
+    public synchronized void submit(String file, byte[] data) throws IOException {
+        pending.put(file, data);
+
+        if (thread == null) {
+            thread = new Thread(this::run, "disk-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        notifyAll();
+        checkFailure(file);
+    }
+
+    /**
+     * Returns the data waiting to be written to the given file.
+     *
+     * @param file the target file
+     * @return the pending data, or the data of an unreported failed write, or null if nothing is waiting
+     */
+    public synchronized byte[] getPending(String file) {
+        byte[] data = pending.get(file);
+        if (data == null && failed.containsKey(file)) {
+            data = failed.get(file).data;
+        }
+        return data;
+    }
+
+    /**
+     * Drops the data waiting to be written to the given file, and waits if the writer is writing the file right
+     * now. Once this returns the file can be written or deleted directly without the writer overwriting it.
+     *
+     * @param file the target file
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void cancel(String file) throws InterruptedException {
+        pending.remove(file);
+        failed.remove(file);
+        notifyAll();
+
+        while (file.equals(writing)) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits until every pending write has been committed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException          if a write failed, the first unreported failure is thrown
+     */
+    public synchronized void flush() throws InterruptedException, IOException {
+        while (!pending.isEmpty()) {
+            wait();
+        }
+
+        if (!failed.isEmpty()) {
+            checkFailure(failed.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Waits until the pending write to the given file has been committed.
+     *
+     * @param file the target file
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException          if the write failed
+     */
+    public synchronized void flush(String file) throws InterruptedException, IOException {
+        while (pending.containsKey(file)) {
+            wait();
+        }
+
+        checkFailure(file);
+    }
+
+    /**
+     * Throws the failure of the last write to the given file if it hasn't been reported yet.
+     *
+     * @param file the target file
+     * @throws IOException if the write failed
+     */
+    private void checkFailure(String file) throws IOException {
+        Failure failure = failed.remove(file);
+        if (failure != null) {
+            throw new IOException("Failed to write " + file, failure.cause);
+        }
+    }
+
+    /**
+     * Writes pending data until the application exits.
+     */
+    private void run() {
+        while (true) {
+            String file;
+            byte[] data;
+
+            synchronized (this) {
+                while (pending.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+
+                Iterator<Map.Entry<String, byte[]>> iterator = pending.entrySet().iterator();
+                Map.Entry<String, byte[]> next = iterator.next();
+                file = next.getKey();
+                data = next.getValue();
+                writing = file;
+            }
+
+            Exception failure = null;
+            try {
+                writer.write(file, data);
+            } catch (IOException | RuntimeException ex) {
+                failure = ex;
+            } finally {
+                // Always cleared, waiting cancels and flushes would otherwise never return
+                synchronized (this) {
+                    writing = null;
+                    // Newer data submitted or a cancel meanwhile replaces the outcome of this write
+                    if (pending.remove(file, data) && failure != null) {
+                        failed.put(file, new Failure(data, failure));
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
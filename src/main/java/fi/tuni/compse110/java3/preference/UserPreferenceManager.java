@@ -85,7 +85,7 @@ public class UserPreferenceManager {
             preferencesList.add(preference);
 
             // Write the updated list back to the file
-            DiskIO.write(Constants.USER_PREFERENCES_FILENAME, getWrapper());
+            DiskIO.writeNow(Constants.USER_PREFERENCES_FILENAME, getWrapper());
             controller.displayUserPreferences(preferencesList);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -109,7 +109,7 @@ public class UserPreferenceManager {
                     break;
                 }
             }
-            DiskIO.write(Constants.USER_PREFERENCES_FILENAME, getWrapper());
+            DiskIO.writeNow(Constants.USER_PREFERENCES_FILENAME, getWrapper());
             controller.displayUserPreferences(preferencesList);
         } catch (IOException e) {
             throw new IOException("Error updating user preferences", e);
@@ -134,7 +134,7 @@ public class UserPreferenceManager {
                     break;
                 }
             }
-            DiskIO.write(Constants.USER_PREFERENCES_FILENAME, getWrapper());
+            DiskIO.writeNow(Constants.USER_PREFERENCES_FILENAME, getWrapper());
             controller.displayUserPreferences(preferencesList);
         } catch (IOException e) {
             throw new IOException("Error updating user preference", e);
@@ -152,7 +152,7 @@ public class UserPreferenceManager {
 
         try {
             preferencesList.removeIf(p -> p.getName().equals(preference.getName()));
-            DiskIO.write(Constants.USER_PREFERENCES_FILENAME, getWrapper());
+            DiskIO.writeNow(Constants.USER_PREFERENCES_FILENAME, getWrapper());
             controller.displayUserPreferences(preferencesList);
         } catch (IOException e) {
             throw new IOException("Error deleting user preferences", e);
@@ -6,9 +6,12 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import fi.tuni.compse110.java3.data.CryptoChartData;
+import fi.tuni.compse110.java3.data.TimeSeries;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
@@ -187,40 +190,27 @@ public class ChartUtils {
 
     /**
      * Calculate the percentage change for each commodity compared to the first
-     * value (earliest) in the list.
+     * value (earliest) in the series.
      * 
-     * @param dataMap map containing the commodity data
-     * @return map containing the percentage change data
+     * @param dataMap map containing a single column series for each commodity
+     * @return map containing the percentage change series
      */
-    public static Map<String, List<XYChart.Data<Number, Number>>> calculatePercentChange(
-            Map<String, List<XYChart.Data<Number, Number>>> dataMap) {
-        Map<String, List<XYChart.Data<Number, Number>>> percentChangeMap = new HashMap<>();
+    public static Map<String, TimeSeries> calculatePercentChange(Map<String, TimeSeries> dataMap) {
+        Map<String, TimeSeries> percentChangeMap = new LinkedHashMap<>();
 
         // Calculate the percentage change for each commodity
-        for (String crypto : dataMap.keySet()) {
-            List<XYChart.Data<Number, Number>> dataList = dataMap.get(crypto);
-            List<XYChart.Data<Number, Number>> dailyChanges = new ArrayList<>();
-
-            if (!dataList.isEmpty()) {
-                // If current price is added to the start (happens with cryptos), put to the end
-                if (dataList.get(0).getXValue().longValue() > dataList.get(1).getXValue().longValue()) {
-                    XYChart.Data<Number, Number> firstElement = dataList.remove(0);
-                    dataList.add(firstElement);
-                }
-                // Use the first value as the base with 0% change
-                double basePrice = dataList.get(0).getYValue().doubleValue();
-                Number baseXValue = dataList.get(0).getXValue();
-                dailyChanges.add(new XYChart.Data<>(baseXValue, 0.0));
-
-                // Calculate the percentage change for each commodity node
-                for (int i = 1; i < dataList.size(); i++) {
-                    double currentPrice = dataList.get(i).getYValue().doubleValue();
-                    double percentageChange = ((currentPrice - basePrice) / basePrice) * 100;
-                    Number xValue = dataList.get(i).getXValue();
-                    dailyChanges.add(new XYChart.Data<>(xValue, percentageChange));
-                }
+        for (Map.Entry<String, TimeSeries> entry : dataMap.entrySet()) {
+            TimeSeries series = entry.getValue();
+
+            if (series.isEmpty()) {
+                percentChangeMap.put(entry.getKey(), series);
+                continue;
             }
-            percentChangeMap.put(crypto, dailyChanges);
+
+            // Use the first value as the base with 0% change, the series is sorted by time
+            double basePrice = series.getValue(0, 0);
+            percentChangeMap.put(entry.getKey(),
+                    series.map(0, currentPrice -> ((currentPrice - basePrice) / basePrice) * 100));
         }
         return percentChangeMap;
     }
@@ -277,31 +267,44 @@ public class ChartUtils {
      * @param priceTable    the price table
      * @param lineChart     the line chart
      */
-    public static void populateChart(Map<String, List<XYChart.Data<Number, Number>>> priceData,
+    public static void populateChart(Map<String, TimeSeries> priceData,
             DateTimeFormatter dateFormatter, List<String> selectedItems, String tooltipLabel,
             TableView<Map<String, Object>> priceTable, LineChart<Number, Number> lineChart) {
 
         for (String item : selectedItems) {
-            List<XYChart.Data<Number, Number>> prices = priceData.get(item);
+            TimeSeries prices = priceData.get(item);
+            List<XYChart.Data<Number, Number>> points = new ArrayList<>(prices.size());
+            List<Map<String, Object>> rows = new ArrayList<>(prices.size());
 
-            // Create series for each commodity and its price data and add to the line chart
-            XYChart.Series<Number, Number> series = new XYChart.Series<>();
-            series.setName(item);
-            series.getData().addAll(prices);
-            lineChart.getData().add(series);
+            // Make chart points and table rows straight from the columns of the series
+            for (int i = 0; i < prices.size(); i++) {
+                long milliseconds = prices.getTimestamp(i);
+                double value = prices.getValue(0, i);
+                points.add(new XYChart.Data<>(milliseconds, value));
 
-            // Add data to the price table
-            for (XYChart.Data<Number, Number> data : prices) {
                 Map<String, Object> row = new HashMap<>();
                 // Convert milliseconds to LocalDate
-                long milliseconds = data.getXValue().longValue();
                 LocalDate date = Instant.ofEpochMilli(milliseconds)
                         .atZone(ZoneId.systemDefault())
                         .toLocalDate();
                 row.put("date", date);
                 row.put("commodity", item);
-                row.put("value", data.getYValue());
-                priceTable.getItems().add(row);
+                row.put("value", value);
+                rows.add(row);
+            }
+
+            // Create series for each commodity and its price data and add to the line chart
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
+            series.setName(item);
+            series.getData().addAll(points);
+            lineChart.getData().add(series);
+
+            // Add data to the price table
+            priceTable.getItems().addAll(rows);
+
+            for (int i = 0; i < points.size(); i++) {
+                XYChart.Data<Number, Number> data = points.get(i);
+                LocalDate date = (LocalDate) rows.get(i).get("date");
 
                 // Add tooltips to line chart data points
                 ChartUtils.setLineChartTooltip(item, date, tooltipLabel, data, dateFormatter);
@@ -319,22 +322,18 @@ public class ChartUtils {
     /**
      * Populate pie chart with volume data for cryptocurrencies.
      * 
-     * @param volumes       the volume data
+     * @param cryptoData    the chart data of the cryptocurrencies, including their total volumes
      * @param selectedItems the selected cryptocurrencies
      * @param pieChart      the pie chart
      */
-    public static void populatePieChart(Map<String, List<XYChart.Data<Number, Number>>> volumes,
-            List<String> selectedItems, PieChart pieChart) {
+    public static void populatePieChart(Map<String, CryptoChartData> cryptoData, List<String> selectedItems,
+            PieChart pieChart) {
 
         List<PieChart.Data> pieData = new ArrayList<>();
 
-        // Calculate total volume for cryptocurrencies and make slices for the pie chart
+        // Make slices of the total volumes for the pie chart
         for (String item : selectedItems) {
-            List<XYChart.Data<Number, Number>> vols = volumes.get(item);
-
-            double sumYValues = vols.stream().mapToDouble(data -> data.getYValue().doubleValue()).sum();
-
-            PieChart.Data slice = new PieChart.Data(item, sumYValues);
+            PieChart.Data slice = new PieChart.Data(item, cryptoData.get(item).getTotalVolume());
             pieData.add(slice);
         }
 
@@ -2,6 +2,10 @@ package fi.tuni.compse110.java3.utility;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+
+import fi.tuni.compse110.java3.io.EvictionPolicy;
+import fi.tuni.compse110.java3.io.RateLimit;
 
 /**
  * Constants used in the program.
@@ -14,6 +18,14 @@ public class Constants {
             "Bitcoin", "Cardano", "Chainlink", "Dogecoin", "Ethereum", "Litecoin", "Monero", "Polkadot", "XRP",
             "Solana");
 
+    /**
+     * CoinGecko ids of the default cryptocurrencies, so that they can be fetched before the full coin list is loaded
+     */
+    public static final Map<String, String> DEFAULT_CRYPTO_IDS = Map.of(
+            "Bitcoin", "bitcoin", "Cardano", "cardano", "Chainlink", "chainlink", "Dogecoin", "dogecoin",
+            "Ethereum", "ethereum", "Litecoin", "litecoin", "Monero", "monero", "Polkadot", "polkadot",
+            "XRP", "ripple", "Solana", "solana");
+
     /**
      * Default metals
      */
@@ -79,4 +91,142 @@ public class Constants {
      * Zoom factor for zooming out
      */
     public static final double ZOOM_FACTOR_OUT = 1.2;
+
+    /**
+     * Maximum number of pooled HTTP connections in total
+     */
+    public static final int HTTP_MAX_CONNECTIONS_TOTAL = 20;
+
+    /**
+     * Maximum number of pooled HTTP connections per API host
+     */
+    public static final int HTTP_MAX_CONNECTIONS_PER_HOST = 6;
+
+    /**
+     * HTTP connect timeout in seconds
+     */
+    public static final int HTTP_CONNECT_TIMEOUT = 10;
+
+    /**
+     * HTTP read (socket) timeout in seconds
+     */
+    public static final int HTTP_READ_TIMEOUT = 30;
+
+    /**
+     * How long an idle HTTP connection is kept alive in seconds
+     */
+    public static final int HTTP_KEEP_ALIVE = 60;
+
+    /**
+     * Idle HTTP connections are evicted from the pool after this many seconds
+     */
+    public static final int HTTP_IDLE_EVICTION = 30;
+
+    /**
+     * Maximum estimated size of API responses kept in memory in bytes
+     */
+    public static final long MEMORY_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Directory of the API response cache, can be changed with the "cache.dir" system property. The trailing
+     * separator is optional
+     */
+    public static final String CACHE_DIRECTORY = System.getProperty("cache.dir", "cache/");
+
+    /**
+     * Maximum total size of cached API responses on disk in bytes
+     */
+    public static final long CACHE_MAX_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Cached API responses unused for this many seconds are removed from disk
+     */
+    public static final long CACHE_MAX_AGE = 90L * 24 * 60 * 60;
+
+    /**
+     * Which cached API responses are removed first when the cache is too large
+     */
+    public static final EvictionPolicy CACHE_EVICTION_POLICY = EvictionPolicy.LRU;
+
+    /**
+     * How often the cache size and age limits are enforced in seconds
+     */
+    public static final long CACHE_JANITOR_INTERVAL = 10 * 60;
+
+    /**
+     * Request quotas of the APIs by host, or by host and endpoint like "api.metals.dev/timeseries". Metals.dev
+     * only limits requests per month, so its endpoints share the host quota
+     */
+    public static final Map<String, RateLimit> RATE_LIMITS = Map.of(
+            "api.coingecko.com", new RateLimit(30, 5),
+            "api.metals.dev", new RateLimit(20, 5));
+
+    /**
+     * Request quota of hosts not listed in RATE_LIMITS
+     */
+    public static final RateLimit DEFAULT_RATE_LIMIT = new RateLimit(60, 10);
+
+    /**
+     * Maximum number of requests waiting for their turn per API host
+     */
+    public static final int REQUEST_QUEUE_MAX = 32;
+
+    /**
+     * Maximum number of API responses fetched and parsed concurrently
+     */
+    public static final int FETCH_THREADS = 4;
+
+    /**
+     * Longest Retry-After in seconds that a rate limited request waits for instead of failing
+     */
+    public static final long MAX_RETRY_AFTER = 60;
+
+    /**
+     * How many seconds to pause requests to an API that is rate limiting without a Retry-After header
+     */
+    public static final long DEFAULT_RETRY_AFTER = 60;
+
+    /**
+     * How many times a failed API request is sent at most, including the first attempt
+     */
+    public static final int RETRY_MAX_ATTEMPTS = 3;
+
+    /**
+     * Upper bound of the random delay before the first retry of a failed API request in milliseconds
+     */
+    public static final long RETRY_BASE_DELAY = 500;
+
+    /**
+     * Upper bound of the random delay before any retry of a failed API request in milliseconds
+     */
+    public static final long RETRY_MAX_DELAY = 5000;
+
+    /**
+     * How many consecutive failed requests make an API considered down
+     */
+    public static final int CIRCUIT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * How many seconds requests to an API considered down fail immediately before a trial request
+     */
+    public static final long CIRCUIT_OPEN_DURATION = 30;
+
+    /**
+     * Base url of the CoinGecko API, can be redirected e.g. to a stand-in server with the "crypto.api.url" system
+     * property
+     */
+    public static final String CRYPTO_API_URL = System.getProperty("crypto.api.url",
+            "https://api.coingecko.com/api/v3/");
+
+    /**
+     * Base url of the metals.dev API, can be redirected e.g. to a stand-in server with the "metals.api.url" system
+     * property
+     */
+    public static final String METALS_API_URL = System.getProperty("metals.api.url", "https://api.metals.dev/v1/");
+
+    /**
+     * Directory where fetched API responses are recorded for the stand-in server, set with the "api.record.dir"
+     * system property. Null when not recording
+     */
+    public static final String RECORD_DIRECTORY = System.getProperty("api.record.dir");
 }
@@ -0,0 +1,106 @@
+package fi.tuni.compse110.java3.utility;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thread-safe cache of values that are loaded on first use. Each key is loaded at most once at a time: threads
+ * asking for a key that is being loaded get the same future instead of loading it again. A failed load is removed
+ * from the cache so that the next caller tries again.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LoadingCache<K, V> {
+
+    private final Map<K, CompletableFuture<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the value of the key, loading it with the loader on the executor if it isn't cached or being
+     * loaded yet.
+     *
+     * @param key      the key
+     * @param loader   loads the value, run only if the key is missing
+     * @param executor runs the loader
+     * @return future completed with the value, or exceptionally with the exception the loader threw
+     */
+    public CompletableFuture<V> get(K key, Callable<V> loader, Executor executor) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = entries.putIfAbsent(key, created);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> load(key, created, loader));
+        } catch (RejectedExecutionException ex) {
+            entries.remove(key, created);
+            created.completeExceptionally(ex);
+        }
+
+        return created;
+    }
+
+    /**
+     * Returns the value of the key if it has been loaded.
+     *
+     * @param key the key
+     * @return the value, or null if it is missing, still loading or failed to load
+     */
+    public V getIfPresent(K key) {
+        CompletableFuture<V> future = entries.get(key);
+
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    /**
+     * Removes the key so that it is loaded again on next use. Threads already waiting for it still get the
+     * previous load.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all keys.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns how many keys are cached or being loaded.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Runs the loader and completes the future with its result.
+     *
+     * @param key    the key being loaded
+     * @param future the future of the key
+     * @param loader loads the value
+     */
+    private void load(K key, CompletableFuture<V> future, Callable<V> loader) {
+        try {
+            future.complete(loader.call());
+        } catch (Exception ex) {
+            // Removed before completing so that callers reacting to the failure load it again
+            entries.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+    }
+}
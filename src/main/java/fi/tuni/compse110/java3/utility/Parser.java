@@ -1,27 +1,27 @@
 package fi.tuni.compse110.java3.utility;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.Type;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import fi.tuni.compse110.java3.data.Coin;
-import fi.tuni.compse110.java3.data.CryptoHistoryData;
-import fi.tuni.compse110.java3.data.CryptoHistoryEntry;
-import fi.tuni.compse110.java3.data.MetalCurrentData;
-import fi.tuni.compse110.java3.data.MetalHistoryEntryAll;
-import fi.tuni.compse110.java3.data.Metals;
+import fi.tuni.compse110.java3.data.CryptoField;
+import fi.tuni.compse110.java3.data.Metal;
+import fi.tuni.compse110.java3.data.TimeSeries;
 
 /**
  * Utility class for parsing JSON data related to cryptocurrency and metal history.
@@ -29,80 +29,206 @@ import fi.tuni.compse110.java3.data.Metals;
 public class Parser {
 
     /**
-     * Returns a list of CryptoHistoryEntry objects from the given JSON string.
+     * Returns the cryptocurrency history in the given JSON string as a series with the columns of
+     * {@link CryptoField}.
      *
      * @param json the JSON string containing the cryptocurrency history data
-     * @return a list of CryptoHistoryEntry objects
+     * @return the history series
+     * @throws IOException if the JSON is malformed
      */
-    public static List<CryptoHistoryEntry> parseCryptoHistoryData(String json) {
-        Gson gson = GsonSingleton.getGsonInstance();
-        CryptoHistoryData data = gson.fromJson(json, CryptoHistoryData.class);
+    public static TimeSeries parseCryptoHistorySeries(String json) throws IOException {
+        return parseCryptoHistorySeries(new StringReader(json));
+    }
 
-        ArrayList<CryptoHistoryEntry> historyPriceData = new ArrayList<>();
+    /**
+     * Returns the cryptocurrency history in the given JSON stream as a series with the columns of
+     * {@link CryptoField}. The values are streamed straight into primitive arrays without intermediate objects.
+     * Volumes and market caps are matched to prices by position, missing ones are 0.
+     *
+     * @param json reader of the JSON containing the cryptocurrency history data
+     * @return the history series
+     * @throws IOException if the JSON is malformed
+     */
+    public static TimeSeries parseCryptoHistorySeries(Reader json) throws IOException {
+        TimeSeries prices = null;
+        TimeSeries volumes = null;
+        TimeSeries marketCaps = null;
 
-        List<List<Number>> priceData = data.getPriceData();
-        List<List<Number>> totalVolumes = data.getTotalVolumes();
+        try (JsonReader reader = new JsonReader(json)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "prices" -> prices = readPoints(reader);
+                    case "total_volumes" -> volumes = readPoints(reader);
+                    case "market_caps" -> marketCaps = readPoints(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
 
-        // Combine price and volume data into CryptoHistoryEntry objects
-        for (int i = 0; i < priceData.size(); ++i) {
-            long timestamp = priceData.get(i).get(0).longValue();
-            double price = priceData.get(i).get(1).doubleValue();
-            double volume = totalVolumes.get(i).get(1).doubleValue();
+        if (prices == null) {
+            throw new IOException("No prices in cryptocurrency history");
+        }
+
+        TimeSeries.TimeSeriesBuilder builder = TimeSeries.builder(CryptoField.values().length);
+        for (int i = 0; i < prices.size(); i++) {
+            builder.append(prices.getTimestamp(i), prices.getValue(0, i),
+                    volumes != null && i < volumes.size() ? volumes.getValue(0, i) : 0,
+                    marketCaps != null && i < marketCaps.size() ? marketCaps.getValue(0, i) : 0);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads an array of [timestamp, value] pairs in the order they appear.
+     *
+     * @param reader reader positioned at the array
+     * @return single column series of the pairs
+     * @throws IOException if the JSON is malformed
+     */
+    private static TimeSeries readPoints(JsonReader reader) throws IOException {
+        TimeSeries.TimeSeriesBuilder builder = TimeSeries.builder(1);
 
-            historyPriceData.add(new CryptoHistoryEntry(timestamp, price, volume));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginArray();
+            long timestamp = reader.nextLong();
+            double value;
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                value = 0;
+            } else {
+                value = reader.nextDouble();
+            }
+            reader.endArray();
+            builder.append(timestamp, value);
         }
+        reader.endArray();
 
-        return historyPriceData;
+        return builder.build();
     }
 
     /**
-     * Returns a list of MetalHistoryDataAll objects from the given JSON string.
-     * List contains a Metals object for each date.
+     * Returns the metal history in the given JSON string as a series with a column for each {@link Metal}.
      *
      * @param json the JSON string containing the metal history data
-     * @return a list of MetalHistoryEntryAll objects
+     * @return the metal history sorted by time, empty if there are no rates
+     * @throws IOException if the JSON is malformed
      */
-    public static List<MetalHistoryEntryAll> parseMetalHistoryData(String json) {
-        Gson gson = GsonSingleton.getGsonInstance();
-        ArrayList<MetalHistoryEntryAll> metalHistoryData = new ArrayList<>();
+    public static TimeSeries parseMetalHistorySeries(String json) throws IOException {
+        return parseMetalHistorySeries(new StringReader(json));
+    }
 
-        JsonObject jsonObject = JsonParser.parseString(json).getAsJsonObject();
-        JsonElement ratesElement = jsonObject.get("rates");
+    /**
+     * Returns the metal history in the given JSON stream as a series with a column for each {@link Metal}. The
+     * prices of all metals are streamed into their columns in one pass, metals missing from a date are 0.
+     *
+     * @param json reader of the JSON containing the metal history data
+     * @return the metal history sorted by time, empty if there are no rates
+     * @throws IOException if the JSON is malformed
+     */
+    public static TimeSeries parseMetalHistorySeries(Reader json) throws IOException {
+        TimeSeries.TimeSeriesBuilder builder = TimeSeries.builder(Metal.values().length);
+
+        try (JsonReader reader = new JsonReader(json)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("rates") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    LocalDate date = LocalDate.parse(reader.nextName(), DateTimeFormatter.ISO_LOCAL_DATE);
+                    long timestamp = date.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1000;
+                    double[] prices = new double[Metal.values().length];
 
-        // Check if rates element is present and is a JSON object, return empty list if not
-        if (ratesElement == null || !ratesElement.isJsonObject()) {
-            return metalHistoryData;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("metals")) {
+                            readMetalPrices(reader, prices);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+
+                    builder.append(timestamp, prices);
+                }
+                reader.endObject();
+            }
+            reader.endObject();
         }
-        JsonObject ratesObject = jsonObject.getAsJsonObject("rates");
 
-        // Convert metal price data for each date into MetalHistoryEntryAll objects
-        for (Map.Entry<String, JsonElement> entry : ratesObject.entrySet()) {
-            String date = entry.getKey();
+        return builder.build();
+    }
+
+    /**
+     * Returns the current metal prices in the given JSON string as a single point series with a column for each
+     * {@link Metal}.
+     *
+     * @param json      the JSON string containing the current metal data
+     * @param timestamp the timestamp of the point in milliseconds since epoch
+     * @return the current prices
+     * @throws IOException if the JSON is malformed or has no prices
+     */
+    public static TimeSeries parseMetalCurrentSeries(String json, long timestamp) throws IOException {
+        return parseMetalCurrentSeries(new StringReader(json), timestamp);
+    }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate timeObject = LocalDate.parse(date, formatter);
-            Instant instant = timeObject.atStartOfDay().toInstant(ZoneOffset.UTC);
-            long unixTimestamp = instant.getEpochSecond() * 1000;
+    /**
+     * Returns the current metal prices in the given JSON stream as a single point series with a column for each
+     * {@link Metal}. Metals missing from the response are 0.
+     *
+     * @param json      reader of the JSON containing the current metal data
+     * @param timestamp the timestamp of the point in milliseconds since epoch
+     * @return the current prices
+     * @throws IOException if the JSON is malformed or has no prices
+     */
+    public static TimeSeries parseMetalCurrentSeries(Reader json, long timestamp) throws IOException {
+        double[] prices = null;
 
-            JsonObject rateData = ratesObject.getAsJsonObject(date);
-            Metals metalPriceData = gson.fromJson(rateData.getAsJsonObject("metals"), Metals.class);
+        try (JsonReader reader = new JsonReader(json)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("metals")) {
+                    prices = new double[Metal.values().length];
+                    readMetalPrices(reader, prices);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
 
-            MetalHistoryEntryAll metalData = new MetalHistoryEntryAll(unixTimestamp, metalPriceData);
-            metalHistoryData.add(metalData);
+        if (prices == null) {
+            throw new IOException("No prices in current metal data");
         }
 
-        return metalHistoryData;
+        return TimeSeries.builder(prices.length).append(timestamp, prices).build();
     }
 
     /**
-     * Returns a MetalCurrentData object from the given JSON string.
+     * Reads an object of metal prices by metals.dev key into the columns of the known metals. Other keys are
+     * skipped.
      *
-     * @param json the JSON string containing the current metal data
-     * @return a MetalCurrentData object
+     * @param reader reader positioned at the object
+     * @param prices the array to store the price of each metal in, by column
+     * @throws IOException if the JSON is malformed
      */
-    public static MetalCurrentData parseMetalCurrentData(String json) {
-        Gson gson = GsonSingleton.getGsonInstance();
-        return gson.fromJson(json, MetalCurrentData.class);
+    private static void readMetalPrices(JsonReader reader, double[] prices) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Metal metal = Metal.fromKey(reader.nextName());
+            if (metal == null || reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else {
+                prices[metal.getColumn()] = reader.nextDouble();
+            }
+        }
+        reader.endObject();
     }
 
     /**
@@ -113,7 +239,18 @@ public class Parser {
      * @return a map of exchange rates for the given currencies
      */
     public static Map<String, Double> parseExchangeRateData(String json, List<String> desiredCurrencies) {
-        JsonObject jsonObject = JsonParser.parseString(json).getAsJsonObject();
+        return parseExchangeRateData(new StringReader(json), desiredCurrencies);
+    }
+
+    /**
+     * Returns a map of exchange rates for given currencies from the given JSON stream.
+     *
+     * @param json              reader of the JSON containing the exchange rate data
+     * @param desiredCurrencies the list of desired currency codes
+     * @return a map of exchange rates for the given currencies
+     */
+    public static Map<String, Double> parseExchangeRateData(Reader json, List<String> desiredCurrencies) {
+        JsonObject jsonObject = JsonParser.parseReader(json).getAsJsonObject();
         JsonObject currenciesObject = jsonObject.getAsJsonObject("currencies");
 
         Map<String, Double> exchangeRates = new HashMap<>();
@@ -135,9 +272,19 @@ public class Parser {
      * @return a map of coin names and their corresponding IDs.
      */
     public static Map<String, String> parseCoinsList(String json) {
+        return parseCoinsList(new StringReader(json));
+    }
+
+    /**
+     * Returns a map of coin names and their corresponding IDs from the given JSON stream.
+     *
+     * @param json reader of the JSON containing a list of coin id-name data.
+     * @return a map of coin names and their corresponding IDs.
+     */
+    public static Map<String, String> parseCoinsList(Reader json) {
         Gson gson = GsonSingleton.getGsonInstance();
 
-        // Parse the JSON string into a list of Coin objects
+        // Parse the JSON into a list of Coin objects
         Type listType = new TypeToken<List<Coin>>() {}.getType();
         List<Coin> coins = gson.fromJson(json, listType);
 
@@ -0,0 +1,52 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.data.ApiError;
+import fi.tuni.compse110.java3.data.ApiResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApiResultTest {
+
+    @Test
+    void testSuccess() {
+        ApiResult<Double> result = ApiResult.success(1.5);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1.5, result.getValue());
+        assertTrue(result.getErrors().isEmpty());
+    }
+
+    @Test
+    void testPartialResult() {
+        List<ApiError> errors = new ArrayList<>();
+        errors.add(new ApiError(ApiError.Type.NOT_FOUND, "No data found for selected interval for Gold"));
+
+        ApiResult<String> result = new ApiResult<>("value", errors);
+        errors.clear();
+
+        assertFalse(result.isSuccess());
+        assertEquals("value", result.getValue());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("Not Found", result.getErrors().get(0).getType().getTitle());
+        assertNull(result.getErrors().get(0).getCause());
+    }
+
+    @Test
+    void testErrorUnwrapsFutureException() {
+        IOException cause = new IOException("timed out");
+        CompletableFuture<String> future = CompletableFuture.failedFuture(cause);
+
+        CompletionException thrown = assertThrows(CompletionException.class, future::join);
+        ApiError error = new ApiError(ApiError.Type.FETCH_FAILED, "Failed to get data for Bitcoin", thrown);
+
+        assertSame(cause, error.getCause());
+        assertEquals("Error", error.getType().getTitle());
+    }
+}
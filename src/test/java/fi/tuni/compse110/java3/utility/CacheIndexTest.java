@@ -0,0 +1,39 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CacheHeader;
+import fi.tuni.compse110.java3.io.CacheIndex;
+import fi.tuni.compse110.java3.io.CacheIndexEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheIndexTest {
+
+    private static final String URL = "https://api.coingecko.com/api/v3/coins/bitcoin/market_chart?days=365";
+
+    @Test
+    void testPutHeaderKeepsAccessStatistics() {
+        CacheIndex index = CacheIndex.load("target/index-test/");
+        index.put("key", new CacheHeader(URL, 1000, 60, 10, 0, CacheHeader.GZIP, 5, null, null));
+        index.touch("key", 2000);
+        index.touch("key", 3000);
+
+        // Revalidated or fetched again
+        index.put("key", new CacheHeader(URL, 4000, 120, 20, 0, CacheHeader.GZIP, 8, null, null));
+
+        CacheIndexEntry entry = index.get("key");
+        assertEquals(4000, entry.getTime());
+        assertEquals(120, entry.getTtl());
+        assertEquals(8, entry.getSize());
+        assertEquals(3000, entry.getLastAccess());
+        assertEquals(2, entry.getAccessCount());
+    }
+
+    @Test
+    void testDirectoryWithoutTrailingSeparator() {
+        CacheIndex index = CacheIndex.load("target/index-test");
+
+        assertEquals("target/index-test/", index.getDirectory());
+        assertEquals("target/index-test/key", index.getPath("key"));
+    }
+}
@@ -0,0 +1,137 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CacheHeader;
+import fi.tuni.compse110.java3.io.CacheIndex;
+import fi.tuni.compse110.java3.io.CacheIndexEntry;
+import fi.tuni.compse110.java3.io.CacheJanitor;
+import fi.tuni.compse110.java3.io.CacheLocks;
+import fi.tuni.compse110.java3.io.DiskIO;
+import fi.tuni.compse110.java3.io.EvictionPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheJanitorTest {
+
+    private static final String DIRECTORY = "target/janitor-test/";
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long NOW = 100 * DAY;
+
+    private CacheIndex index;
+    private CacheLocks locks;
+    private List<String> evicted;
+
+    @BeforeEach
+    void setUp() {
+        // Let the index saved by the previous test reach the disk before clearing the directory
+        DiskIO.flush();
+        if (locks != null) {
+            locks.close();
+        }
+        File[] files = new File(DIRECTORY).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                // noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        index = CacheIndex.load(DIRECTORY);
+        locks = new CacheLocks(DIRECTORY + CacheIndex.LOCK_DIRECTORY);
+        evicted = new ArrayList<>();
+    }
+
+    private CacheJanitor janitor(long maxBytes, long maxAge, EvictionPolicy policy) {
+        return new CacheJanitor(index, locks, maxBytes, maxAge, policy, evicted::add);
+    }
+
+    private void addEntry(String key, long size, long ttl, long lastAccess, int accessCount) throws Exception {
+        index.put(new CacheIndexEntry(key, "https://example.com/" + key, key, null, null, null, size, lastAccess,
+                ttl, lastAccess, accessCount));
+        DiskIO.writeBytes(DIRECTORY + key + CacheIndex.BODY_SUFFIX, new byte[(int) size]);
+        DiskIO.writeBytes(DIRECTORY + key + CacheIndex.HEADER_SUFFIX, new byte[1]);
+    }
+
+    @Test
+    void testRemovesUnusedEntries() throws Exception {
+        addEntry("old", 10, 60, NOW - 10 * DAY, 5);
+        addEntry("new", 10, 60, NOW - DAY, 5);
+
+        assertEquals(1, janitor(1000, 5 * 24 * 60 * 60, EvictionPolicy.LRU).runOnce(NOW));
+        assertNull(index.get("old"));
+        assertNotNull(index.get("new"));
+        assertEquals(List.of("old"), evicted);
+        // The lock file taken for evicting is deleted too
+        assertFalse(new File(DIRECTORY + CacheIndex.LOCK_DIRECTORY + "old" + CacheLocks.LOCK_SUFFIX).exists());
+        assertEquals(0, locks.getOpenCount());
+        assertFalse(new File(DIRECTORY + "old" + CacheIndex.BODY_SUFFIX).exists());
+        assertTrue(new File(DIRECTORY + "new" + CacheIndex.BODY_SUFFIX).exists());
+    }
+
+    @Test
+    void testEvictsVolatileBeforePinned() throws Exception {
+        addEntry("pinned", 100, Integer.MAX_VALUE, NOW - 3 * DAY, 1);
+        addEntry("volatile", 100, 60, NOW - DAY, 10);
+
+        janitor(150, 30 * 24 * 60 * 60, EvictionPolicy.LRU).runOnce(NOW);
+        assertNotNull(index.get("pinned"));
+        assertNull(index.get("volatile"));
+    }
+
+    @Test
+    void testEvictionPolicies() throws Exception {
+        addEntry("recent", 100, 60, NOW - DAY, 1);
+        addEntry("frequent", 100, 60, NOW - 2 * DAY, 10);
+
+        janitor(150, 30 * 24 * 60 * 60, EvictionPolicy.LRU).runOnce(NOW);
+        assertNotNull(index.get("recent"));
+        assertNull(index.get("frequent"));
+
+        setUp();
+        addEntry("recent", 100, 60, NOW - DAY, 1);
+        addEntry("frequent", 100, 60, NOW - 2 * DAY, 10);
+
+        janitor(150, 30 * 24 * 60 * 60, EvictionPolicy.LFU).runOnce(NOW);
+        assertNull(index.get("recent"));
+        assertNotNull(index.get("frequent"));
+    }
+
+    @Test
+    void testKeepsRecentlyUsedEntries() throws Exception {
+        addEntry("inUse", 100, 60, NOW - 1000, 1);
+
+        assertEquals(0, janitor(10, 30 * 24 * 60 * 60, EvictionPolicy.LRU).runOnce(NOW));
+        assertNotNull(index.get("inUse"));
+    }
+
+    @Test
+    void testAdoptsEntriesWrittenElsewhere() throws Exception {
+        String shared = DIRECTORY + "shared";
+        DiskIO.writeBytes(shared + CacheIndex.BODY_SUFFIX, new byte[20]);
+        DiskIO.writeNow(shared + CacheIndex.HEADER_SUFFIX, new CacheHeader("https://example.com/shared", NOW - DAY,
+                60, 20, 0, null, 20, null, null));
+        String incomplete = DIRECTORY + "incomplete";
+        DiskIO.writeNow(incomplete + CacheIndex.HEADER_SUFFIX, new CacheHeader("https://example.com/incomplete",
+                NOW - DAY, 60, 20, 0, null, 20, null, null));
+        String oldFormat = DIRECTORY + "794087530";
+        DiskIO.writeBytes(oldFormat, new byte[1]);
+
+        File[] files = new File(DIRECTORY).listFiles(File::isFile);
+        assertNotNull(files);
+        for (File file : files) {
+            assertTrue(file.setLastModified(NOW - DAY));
+        }
+
+        assertEquals(0, janitor(1000, 30 * 24 * 60 * 60, EvictionPolicy.LRU).runOnce(NOW));
+        assertNotNull(index.get("shared"));
+        assertEquals(20, index.get("shared").getSize());
+        assertNull(index.get("incomplete"));
+        assertFalse(new File(incomplete + CacheIndex.HEADER_SUFFIX).exists());
+        assertFalse(new File(oldFormat).exists());
+        assertTrue(new File(shared + CacheIndex.BODY_SUFFIX).exists());
+    }
+}
@@ -0,0 +1,48 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CacheKey;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheKeyTest {
+
+    private static final String CRYPTO_URL = "https://api.coingecko.com/api/v3/coins/bitcoin/market_chart"
+            + "?vs_currency=usd&days=365&interval=daily&x_cg_demo_api_key=SECRET";
+
+    private static final String METAL_URL = "https://API.metals.dev/v1/timeseries?api_key=SECRET"
+            + "&start_date=2024.01.01&end_date=2024.01.30";
+
+    @Test
+    void testNormalizeStripsApiKeys() {
+        assertEquals("https://api.coingecko.com/api/v3/coins/bitcoin/market_chart"
+                + "?vs_currency=usd&days=365&interval=daily", CacheKey.normalize(CRYPTO_URL));
+        assertEquals("https://api.metals.dev/v1/timeseries?start_date=2024.01.01&end_date=2024.01.30",
+                CacheKey.normalize(METAL_URL));
+        assertEquals("https://api.metals.dev/v1/latest",
+                CacheKey.normalize("https://api.metals.dev/v1/latest?api_key=SECRET"));
+    }
+
+    @Test
+    void testDigest() {
+        String digest = CacheKey.digest(CRYPTO_URL);
+
+        assertEquals(64, digest.length());
+        assertEquals(digest, CacheKey.digest(CRYPTO_URL.replace("SECRET", "OTHER")));
+        assertNotEquals(digest, CacheKey.digest(CRYPTO_URL.replace("bitcoin", "ethereum")));
+    }
+
+    @Test
+    void testMetadata() {
+        assertEquals("coins/market_chart", CacheKey.getEndpoint(CRYPTO_URL));
+        assertEquals("bitcoin", CacheKey.getAsset(CRYPTO_URL));
+        assertNull(CacheKey.getParameter(CRYPTO_URL, "start_date"));
+
+        assertEquals("timeseries", CacheKey.getEndpoint(METAL_URL));
+        assertNull(CacheKey.getAsset(METAL_URL));
+        assertEquals("2024.01.01", CacheKey.getParameter(METAL_URL, "start_date"));
+        assertEquals("2024.01.30", CacheKey.getParameter(METAL_URL, "end_date"));
+
+        assertEquals("coins/list", CacheKey.getEndpoint("https://api.coingecko.com/api/v3/coins/list"));
+    }
+}
@@ -0,0 +1,115 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CacheLocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheLocksTest {
+
+    private final CacheLocks locks = new CacheLocks("target/locks-test/");
+
+    @AfterEach
+    void tearDown() {
+        locks.close();
+    }
+
+    @Test
+    void testReadersShareLock() throws Exception {
+        try (CacheLocks.Handle first = locks.lockRead("key")) {
+            assertNotNull(first);
+            CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+                try (CacheLocks.Handle ignored = locks.lockRead("key")) {
+                    assertNotNull(ignored);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+
+            second.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testWriterWaitsForReaders() throws Exception {
+        CompletableFuture<Void> writer;
+
+        try (CacheLocks.Handle reader = locks.lockRead("key")) {
+            assertNotNull(reader);
+            writer = CompletableFuture.runAsync(() -> {
+                try (CacheLocks.Handle ignored = locks.lockWrite("key")) {
+                    assertNotNull(ignored);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+
+            assertThrows(TimeoutException.class, () -> writer.get(200, TimeUnit.MILLISECONDS));
+        }
+
+        writer.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testFetchIsExclusive() throws Exception {
+        CompletableFuture<Void> other;
+
+        try (CacheLocks.Handle fetch = locks.lockFetch("key")) {
+            assertNotNull(fetch);
+            other = CompletableFuture.runAsync(() -> {
+                try (CacheLocks.Handle ignored = locks.lockFetch("key")) {
+                    assertNotNull(ignored);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+
+            assertThrows(TimeoutException.class, () -> other.get(200, TimeUnit.MILLISECONDS));
+
+            // Fetching doesn't block reading the entry or fetching others
+            try (CacheLocks.Handle read = locks.lockRead("key");
+                    CacheLocks.Handle fetchOther = locks.lockFetch("other")) {
+                assertNotNull(read);
+                assertNotNull(fetchOther);
+            }
+        }
+
+        other.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testClosesLockFileWhenUnlocked() throws Exception {
+        CacheLocks.Handle read = locks.lockRead("key");
+        CacheLocks.Handle write = locks.lockWrite("other");
+        assertEquals(2, locks.getOpenCount());
+
+        read.close();
+        write.close();
+        assertEquals(0, locks.getOpenCount());
+    }
+
+    @Test
+    void testDeletesOnlyUnusedLockFile() throws Exception {
+        File file = new File("target/locks-test/deleted" + CacheLocks.LOCK_SUFFIX);
+
+        CacheLocks.Handle fetch = locks.lockFetch("deleted");
+        assertFalse(locks.delete("deleted"));
+        assertTrue(file.exists());
+        fetch.close();
+
+        assertTrue(locks.delete("deleted"));
+        assertFalse(file.exists());
+        assertEquals(0, locks.getOpenCount());
+
+        // Locking again creates a new lock file
+        CacheLocks.Handle write = locks.lockWrite("deleted");
+        assertTrue(file.exists());
+        write.close();
+    }
+}
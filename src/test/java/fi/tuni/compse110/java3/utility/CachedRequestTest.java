@@ -1,24 +1,113 @@
 package fi.tuni.compse110.java3.utility;
 
+import fi.tuni.compse110.java3.io.CacheHeader;
 import fi.tuni.compse110.java3.io.CachedRequest;
 import fi.tuni.compse110.java3.io.CachedResponse;
+import fi.tuni.compse110.java3.io.DiskIO;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CachedRequestTest {
 
+    private static final String URL =
+            "https://api.coingecko.com/api/v3/coins/bitcoin/market_chart?vs_currency=usd&days=365&interval=daily";
+
     @Test
     void testReadCached() throws Exception {
-        Method method = CachedRequest.class.getDeclaredMethod("readCached", String.class, long.class, long.class);
-        method.setAccessible(true);
+        Method method = getReadCached();
 
-        CachedResponse test = (CachedResponse) method.invoke(null,
-                "src/test/resources/fi/tuni/compse110/java3/utility/794087530", 0, 0);
+        CachedResponse test = (CachedResponse) method.invoke(null, "test",
+                "src/test/resources/fi/tuni/compse110/java3/utility/794087530", URL, 0, 0);
 
         assertEquals(1728478389141L, test.getTime());
+        assertEquals(49, test.getLength());
         assertEquals("{\"prices\":[],\"market_caps\":[],\"total_volumes\":[]}", test.getResponse());
     }
+
+    @Test
+    void testReadCachedRejectsOtherUrl() throws Exception {
+        Object test = getReadCached().invoke(null, "test",
+                "src/test/resources/fi/tuni/compse110/java3/utility/794087530", URL + "&other", 0, 0);
+
+        assertNull(test);
+    }
+
+    @Test
+    void testReadCachedRejectsTooOld() throws Exception {
+        Object test = getReadCached().invoke(null, "test",
+                "src/test/resources/fi/tuni/compse110/java3/utility/794087530", URL, 1728478389141L + 2000, 1);
+
+        assertNull(test);
+    }
+
+    @Test
+    void testReadCachedCompressed() throws Exception {
+        String body = "{\"prices\":[[1,2.5]],\"market_caps\":[[1,3.5]],\"total_volumes\":[[1,4.5]]}";
+        String file = writeCompressed("target/cache-test/compressed", body, body);
+
+        CachedResponse test = (CachedResponse) getReadCached().invoke(null, "test", file, URL, 0, 0);
+
+        assertEquals(body.length(), test.getLength());
+        try (Reader reader = test.openReader()) {
+            assertEquals(1, Parser.parseCryptoHistorySeries(reader).size());
+        }
+
+        // The body read once is kept, later reads don't need the file
+        assertTrue(new File(file + ".body").delete());
+        assertEquals(body, test.getResponse());
+        try (Reader reader = test.openReader()) {
+            assertEquals(body.length(), reader.transferTo(Writer.nullWriter()));
+        }
+    }
+
+    @Test
+    void testReadCachedCompressedCorrupted() throws Exception {
+        String body = "{\"prices\":[],\"market_caps\":[],\"total_volumes\":[]}";
+        String file = writeCompressed("target/cache-test/corrupted", body, body.replace("prices", "prizes"));
+
+        CachedResponse test = (CachedResponse) getReadCached().invoke(null, "test", file, URL, 0, 0);
+
+        assertThrows(UncheckedIOException.class, test::getResponse);
+    }
+
+    /**
+     * Writes a gzip compressed cache entry whose header describes the expected body.
+     */
+    private static String writeCompressed(String file, String expected, String stored) throws IOException {
+        byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+        CRC32 checksum = new CRC32();
+        checksum.update(expectedBytes);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        DiskIO.writeBytes(file + ".body", compressed.toByteArray());
+        DiskIO.write(file + ".meta", new CacheHeader(URL, 1728478389141L, 0, expectedBytes.length,
+                checksum.getValue(), CacheHeader.GZIP, new File(file + ".body").length(), null, null));
+        return file;
+    }
+
+    private static Method getReadCached() throws NoSuchMethodException {
+        Method method = CachedRequest.class.getDeclaredMethod("readCached", String.class, String.class, String.class,
+                long.class, long.class);
+        method.setAccessible(true);
+        return method;
+    }
 }
@@ -0,0 +1,57 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CachedResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedResponseTest {
+
+    private static final String BODY = "{\"prices\":[[1,2.5]],\"market_caps\":[],\"total_volumes\":[]}";
+
+    private static CachedResponse response(String body, AtomicInteger opened) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return new CachedResponse(0, bytes.length, () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(bytes);
+        });
+    }
+
+    @Test
+    void testKeepsBodyStreamedOnFirstRead() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        CachedResponse response = response(BODY, opened);
+
+        // Parsers stop at the end of the json without reading the end of the stream
+        try (Reader reader = response.openReader()) {
+            char[] chars = new char[BODY.length()];
+            assertEquals(BODY.length(), reader.read(chars));
+        }
+
+        assertEquals(BODY, response.getResponse());
+        assertEquals(BODY, response.asStale().getResponse());
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void testPartialReadIsNotKept() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        // Larger than what the reader reads ahead
+        String body = "x".repeat(100_000);
+        CachedResponse response = response(body, opened);
+
+        try (Reader reader = response.openReader()) {
+            assertEquals('x', reader.read());
+        }
+
+        assertEquals(body, response.getResponse());
+        assertEquals(2, opened.get());
+        assertEquals(body, response.getResponse());
+        assertEquals(2, opened.get());
+    }
+}
@@ -0,0 +1,79 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CircuitBreaker;
+import fi.tuni.compse110.java3.io.RetryPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000);
+
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        breaker.recordSuccess(); // Resets the count
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        assertTrue(breaker.allowRequest(0));
+
+        breaker.recordFailure(100);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(500));
+        assertEquals(1100, breaker.getRetryAt());
+    }
+
+    @Test
+    void testSingleTrialAfterOpenDuration() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000);
+        breaker.recordFailure(0);
+
+        assertTrue(breaker.allowRequest(1000));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(1000)); // Only one trial at a time
+
+        // Failed trial opens the circuit again
+        breaker.recordFailure(1500);
+        assertFalse(breaker.allowRequest(2000));
+
+        // Successful trial closes it
+        assertTrue(breaker.allowRequest(2500));
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest(2500));
+    }
+
+    @Test
+    void testAbortedTrialIsGivenBack() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000);
+        breaker.recordFailure(0);
+        assertTrue(breaker.allowRequest(1000));
+
+        // An interrupted trial neither closes the circuit nor keeps it half open
+        breaker.recordAborted();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(1000));
+
+        // Aborted requests don't affect a closed circuit
+        breaker.recordSuccess();
+        breaker.recordAborted();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testRetryDelay() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1000);
+
+        assertEquals(50, policy.getDelay(1, 0.5));
+        assertEquals(200, policy.getDelay(3, 0.5));
+        assertEquals(500, policy.getDelay(10, 0.5)); // Capped
+        assertEquals(0, policy.getDelay(2, 0));
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.getDelay(4);
+            assertTrue(delay >= 0 && delay < 800);
+        }
+    }
+}
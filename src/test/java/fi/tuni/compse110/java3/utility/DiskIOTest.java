@@ -42,6 +42,12 @@ public class DiskIOTest {
         assertEquals(test, "This is a test.");
     }
 
+    @Test
+    void testOpenReaderMissingFile() throws Exception {
+        assertNull(DiskIO.openReader("target/does-not-exist.json"));
+        assertNull(DiskIO.readFromDisk("target/does-not-exist.json"));
+    }
+
     @Test
     void testReadWriteObject() throws Exception {
         TestGsonSerializable write = new TestGsonSerializable();
@@ -0,0 +1,124 @@
+package fi.tuni.compse110.java3.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadingCacheTest {
+
+    @Test
+    void testLoadsEachKeyOnceUnderContention() throws Exception {
+        LoadingCache<Integer, List<Integer>> cache = new LoadingCache<>();
+        Map<Integer, AtomicInteger> loads = new ConcurrentHashMap<>();
+        ExecutorService loaders = Executors.newFixedThreadPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        CyclicBarrier start = new CyclicBarrier(32);
+
+        try {
+            List<CompletableFuture<List<List<Integer>>>> results = new ArrayList<>();
+
+            for (int thread = 0; thread < 32; thread++) {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    List<List<Integer>> values = new ArrayList<>();
+                    try {
+                        start.await();
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+
+                    for (int round = 0; round < 200; round++) {
+                        int key = round % 8;
+                        values.add(cache.get(key, () -> {
+                            loads.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                            Thread.sleep(1);
+                            return List.of(key);
+                        }, loaders).join());
+                    }
+                    return values;
+                }, callers));
+            }
+
+            List<List<Integer>> first = results.get(0).get(30, TimeUnit.SECONDS);
+
+            for (CompletableFuture<List<List<Integer>>> result : results) {
+                List<List<Integer>> values = result.get(30, TimeUnit.SECONDS);
+                // Every thread got the very same instance for each key
+                for (int i = 0; i < values.size(); i++) {
+                    assertSame(first.get(i), values.get(i));
+                }
+            }
+
+            assertEquals(8, loads.size());
+            for (AtomicInteger count : loads.values()) {
+                assertEquals(1, count.get());
+            }
+            assertEquals(8, cache.size());
+            assertEquals(List.of(3), cache.getIfPresent(3));
+        } finally {
+            loaders.shutdownNow();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedLoadIsRetried() {
+        LoadingCache<String, String> cache = new LoadingCache<>();
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> failed = cache.get("key", () -> {
+            attempts.incrementAndGet();
+            throw new IOException("offline");
+        }, Runnable::run);
+
+        CompletionException thrown = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IOException.class, thrown.getCause());
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(0, cache.size());
+
+        assertEquals("value", cache.get("key", () -> {
+            attempts.incrementAndGet();
+            return "value";
+        }, Runnable::run).join());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testPendingLoadIsShared() throws Exception {
+        LoadingCache<String, String> cache = new LoadingCache<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService loaders = Executors.newSingleThreadExecutor();
+
+        try {
+            CompletableFuture<String> first = cache.get("key", () -> {
+                release.await();
+                return "first";
+            }, loaders);
+            CompletableFuture<String> second = cache.get("key", () -> "second", loaders);
+
+            assertSame(first, second);
+            assertNull(cache.getIfPresent("key"));
+
+            release.countDown();
+            assertEquals("first", second.get(5, TimeUnit.SECONDS));
+
+            cache.invalidate("key");
+            assertEquals("second", cache.get("key", () -> "second", loaders).get(5, TimeUnit.SECONDS));
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+}
@@ -19,61 +19,100 @@ class ParserTest {
     }
 
     @Test
-    void testParseCryptoHistoryData() throws IOException {
-        String cryptoHistoryJson = readFile("cryptoHistoryData.json");
-
-        List<CryptoHistoryEntry> history = Parser.parseCryptoHistoryData(cryptoHistoryJson);
+    void testParseCryptoHistorySeries() throws IOException {
+        TimeSeries history = Parser.parseCryptoHistorySeries(readFile("cryptoHistoryData.json"));
 
         assertEquals(7, history.size());
+        assertEquals(CryptoField.values().length, history.getColumnCount());
 
-        CryptoHistoryEntry firstEntry = history.get(0);
-        assertEquals(1630454400000L, firstEntry.getTimestamp());
-        assertEquals(47000.0, firstEntry.getPrice());
-        assertEquals(3500000.0, firstEntry.getVolume());
+        assertEquals(1630454400000L, history.getTimestamp(0));
+        assertEquals(47000.0, history.getValue(CryptoField.PRICE.getColumn(), 0));
+        assertEquals(3500000.0, history.getValue(CryptoField.VOLUME.getColumn(), 0));
+        assertEquals(0.0, history.getValue(CryptoField.MARKET_CAP.getColumn(), 0));
 
-        CryptoHistoryEntry lastEntry = history.get(6);
-        assertEquals(1630972800000L, lastEntry.getTimestamp());
-        assertEquals(49500.0, lastEntry.getPrice());
-        assertEquals(3800000.0, lastEntry.getVolume());
+        assertEquals(1630972800000L, history.getTimestamp(6));
+        assertEquals(49500.0, history.getValue(CryptoField.PRICE.getColumn(), 6));
+        assertEquals(3800000.0, history.getValue(CryptoField.VOLUME.getColumn(), 6));
     }
 
     @Test
-    void testParseMetalHistoryData() throws IOException {
-        String metalHistoryJson = readFile("metalHistoryData.json");
-
-        List<MetalHistoryEntryAll> metalHistory = Parser.parseMetalHistoryData(metalHistoryJson);
-
-        assertEquals(4, metalHistory.size());
-
-        MetalHistoryEntryAll firstEntry = metalHistory.get(0);
-        assertEquals(1725148800000L, firstEntry.getTimestamp());
-        Metals firstMetals = firstEntry.getMetalData();
-        assertEquals(1800.0, firstMetals.getGold());
-        assertEquals(2300.0, firstMetals.getPalladium());
-        assertEquals(1000.0, firstMetals.getPlatinum());
-        assertEquals(24.0, firstMetals.getSilver());
-
-        MetalHistoryEntryAll lastEntry = metalHistory.get(3);
-        assertEquals(1725408000000L, lastEntry.getTimestamp());
-        Metals lastMetals = lastEntry.getMetalData();
-        assertEquals(1830.0, lastMetals.getGold());
-        assertEquals(2340.0, lastMetals.getPalladium());
-        assertEquals(1030.0, lastMetals.getPlatinum());
-        assertEquals(25.5, lastMetals.getSilver());
+    void testParseCryptoHistorySeriesUnsortedAndNull() throws IOException {
+        String json = "{\"prices\":[[2,3.0],[1,2.0]],\"market_caps\":[[2,null],[1,100.0]],"
+                + "\"total_volumes\":[[2,20.0],[1,10.0]]}";
+
+        TimeSeries history = Parser.parseCryptoHistorySeries(json);
+
+        assertEquals(2, history.size());
+        assertEquals(1, history.getTimestamp(0));
+        assertEquals(2.0, history.getValue(CryptoField.PRICE.getColumn(), 0));
+        assertEquals(10.0, history.getValue(CryptoField.VOLUME.getColumn(), 0));
+        assertEquals(100.0, history.getValue(CryptoField.MARKET_CAP.getColumn(), 0));
+        assertEquals(0.0, history.getValue(CryptoField.MARKET_CAP.getColumn(), 1));
     }
 
     @Test
-    void testParseMetalCurrentData() throws IOException {
-        String metalCurrentJson = readFile("metalCurrentData.json");
+    void testParseCryptoHistorySeriesWithoutPrices() {
+        assertThrows(IOException.class, () -> Parser.parseCryptoHistorySeries("{\"total_volumes\":[]}"));
+    }
 
-        MetalCurrentData currentData = Parser.parseMetalCurrentData(metalCurrentJson);
+    @Test
+    void testParseMetalHistorySeries() throws IOException {
+        TimeSeries history = Parser.parseMetalHistorySeries(readFile("metalHistoryData.json"));
+
+        assertEquals(4, history.size());
+        assertEquals(Metal.values().length, history.getColumnCount());
+
+        assertEquals(1725148800000L, history.getTimestamp(0));
+        assertEquals(1800.0, history.getValue(Metal.GOLD.getColumn(), 0));
+        assertEquals(2300.0, history.getValue(Metal.PALLADIUM.getColumn(), 0));
+        assertEquals(1000.0, history.getValue(Metal.PLATINUM.getColumn(), 0));
+        assertEquals(24.0, history.getValue(Metal.SILVER.getColumn(), 0));
+        assertEquals(0.0, history.getValue(Metal.COPPER.getColumn(), 0));
+
+        assertEquals(1725408000000L, history.getTimestamp(3));
+        assertEquals(1830.0, history.getValue(Metal.GOLD.getColumn(), 3));
+        assertEquals(25.5, history.getValue(Metal.SILVER.getColumn(), 3));
+    }
 
-        assertNotNull(currentData);
-        Metals metals = currentData.getCurrentMetals();
-        assertEquals(1925.0, metals.getGold());
-        assertEquals(2450.0, metals.getPalladium());
-        assertEquals(1150.0, metals.getPlatinum());
-        assertEquals(27.0, metals.getSilver());
+    @Test
+    void testParseMetalHistorySeriesUnsortedWithOtherKeys() throws IOException {
+        String json = "{\"status\":\"success\",\"rates\":{"
+                + "\"2024-09-02\":{\"metals\":{\"gold\":2.0,\"copper\":0.3,\"lbma_gold_am\":9.0},\"currencies\":{}},"
+                + "\"2024-09-01\":{\"metals\":{\"gold\":1.0,\"zinc\":null}}}}";
+
+        TimeSeries history = Parser.parseMetalHistorySeries(json);
+
+        assertEquals(2, history.size());
+        assertEquals(1725148800000L, history.getTimestamp(0));
+        assertEquals(1.0, history.getValue(Metal.GOLD.getColumn(), 0));
+        assertEquals(0.0, history.getValue(Metal.ZINC.getColumn(), 0));
+        assertEquals(2.0, history.getValue(Metal.GOLD.getColumn(), 1));
+        assertEquals(0.3, history.getValue(Metal.COPPER.getColumn(), 1));
+        assertTrue(Parser.parseMetalHistorySeries("{\"status\":\"failure\"}").isEmpty());
+    }
+
+    @Test
+    void testParseMetalCurrentSeries() throws IOException {
+        TimeSeries current = Parser.parseMetalCurrentSeries(readFile("metalCurrentData.json"), 1000L);
+
+        assertEquals(1, current.size());
+        assertEquals(1000L, current.getTimestamp(0));
+        assertEquals(1925.0, current.getValue(Metal.GOLD.getColumn(), 0));
+        assertEquals(2450.0, current.getValue(Metal.PALLADIUM.getColumn(), 0));
+        assertEquals(1150.0, current.getValue(Metal.PLATINUM.getColumn(), 0));
+        assertEquals(27.0, current.getValue(Metal.SILVER.getColumn(), 0));
+        assertThrows(IOException.class, () -> Parser.parseMetalCurrentSeries("{}", 1000L));
+    }
+
+    @Test
+    void testMetalLookup() {
+        assertEquals(Metal.GOLD, Metal.fromName("Gold"));
+        assertEquals(Metal.ALUMINUM, Metal.fromKey("aluminum"));
+        assertNull(Metal.fromName("gold"));
+        assertNull(Metal.fromKey("lbma_gold_am"));
+        for (String metal : Constants.DEFAULT_METALS) {
+            assertNotNull(Metal.fromName(metal));
+        }
     }
 
     @Test
@@ -0,0 +1,127 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.RateLimit;
+import fi.tuni.compse110.java3.io.RequestPriority;
+import fi.tuni.compse110.java3.io.RequestScheduler;
+import fi.tuni.compse110.java3.io.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestSchedulerTest {
+
+    private static final String URL = "https://api.example.com/v1/timeseries?start_date=2024-01-01";
+
+    @Test
+    void testTokenBucket() {
+        TokenBucket bucket = new TokenBucket(new RateLimit(60, 2));
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(1000, bucket.tryAcquire(0)); // One token per second
+        assertEquals(500, bucket.tryAcquire(500));
+        assertEquals(0, bucket.tryAcquire(1000));
+
+        // Refills up to the burst size only
+        assertEquals(0, bucket.tryAcquire(60000));
+        assertEquals(0, bucket.tryAcquire(60000));
+        assertTrue(bucket.tryAcquire(60000) > 0);
+    }
+
+    @Test
+    void testParseRetryAfter() {
+        assertEquals(1000 + 120 * 1000, RequestScheduler.parseRetryAfter("120", 1000));
+        assertEquals(784111777000L, RequestScheduler.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", 0));
+        assertEquals(-1, RequestScheduler.parseRetryAfter("soon", 0));
+        assertEquals(-1, RequestScheduler.parseRetryAfter(null, 0));
+    }
+
+    @Test
+    void testHigherPriorityGoesFirst() throws Exception {
+        // One request per 100 ms after the first
+        AtomicLong clock = new AtomicLong();
+        RequestScheduler scheduler = new RequestScheduler(Map.of(), new RateLimit(600, 1), 10, clock::get);
+        List<RequestPriority> order = new CopyOnWriteArrayList<>();
+
+        scheduler.acquire(URL, RequestPriority.INTERACTIVE); // Empties the bucket
+
+        CompletableFuture<?> refresh = acquireAsync(scheduler, RequestPriority.REFRESH, order);
+        CompletableFuture<?> prefetch = acquireAsync(scheduler, RequestPriority.PREFETCH, order);
+        CompletableFuture<?> interactive = acquireAsync(scheduler, RequestPriority.INTERACTIVE, order);
+        awaitWaiting(scheduler, 3);
+
+        // The clock stands still, so each request is let through only once the next token is due
+        for (int i = 1; i <= 3; i++) {
+            clock.addAndGet(100);
+            while (order.size() < i) {
+                Thread.sleep(1);
+            }
+        }
+
+        CompletableFuture.allOf(refresh, prefetch, interactive).get();
+        assertEquals(List.of(RequestPriority.INTERACTIVE, RequestPriority.PREFETCH, RequestPriority.REFRESH), order);
+    }
+
+    @Test
+    void testQueueIsBounded() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        RequestScheduler scheduler = new RequestScheduler(Map.of(), new RateLimit(600, 1), 1, clock::get);
+
+        scheduler.acquire(URL, RequestPriority.INTERACTIVE); // Empties the bucket
+        CompletableFuture<?> waiting = acquireAsync(scheduler, RequestPriority.INTERACTIVE,
+                new CopyOnWriteArrayList<>());
+        awaitWaiting(scheduler, 1);
+
+        assertThrows(IOException.class, () -> scheduler.acquire(URL, RequestPriority.INTERACTIVE));
+
+        clock.addAndGet(100);
+        waiting.get();
+    }
+
+    @Test
+    void testEndpointLimit() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        RequestScheduler scheduler = new RequestScheduler(Map.of("api.example.com/timeseries", new RateLimit(600, 1)),
+                new RateLimit(600, 10), 10, clock::get);
+
+        scheduler.acquire(URL, RequestPriority.INTERACTIVE);
+
+        // Other endpoints of the host are not limited by the endpoint quota, so this returns without the clock moving
+        scheduler.acquire("https://api.example.com/v1/latest", RequestPriority.INTERACTIVE);
+        assertEquals(0, scheduler.getWaiting(URL));
+
+        CompletableFuture<?> limited = acquireAsync(scheduler, RequestPriority.INTERACTIVE,
+                new CopyOnWriteArrayList<>());
+        awaitWaiting(scheduler, 1);
+        assertFalse(limited.isDone());
+
+        clock.addAndGet(100);
+        limited.get();
+        assertEquals(0, scheduler.getWaiting(URL));
+    }
+
+    private static void awaitWaiting(RequestScheduler scheduler, int count) throws InterruptedException {
+        while (scheduler.getWaiting(URL) < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static CompletableFuture<?> acquireAsync(RequestScheduler scheduler, RequestPriority priority,
+            List<RequestPriority> order) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                scheduler.acquire(URL, priority);
+                order.add(priority);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+    }
+}
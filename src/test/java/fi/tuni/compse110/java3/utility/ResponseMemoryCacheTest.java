@@ -0,0 +1,60 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CachedResponse;
+import fi.tuni.compse110.java3.io.ResponseMemoryCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseMemoryCacheTest {
+
+    @Test
+    void testGetRespectsMaxAge() {
+        ResponseMemoryCache cache = new ResponseMemoryCache(1024 * 1024);
+        cache.put("a", new CachedResponse(1000, "body"));
+
+        assertNotNull(cache.get("a", 2000, 1));
+        assertNull(cache.get("a", 2001, 1)); // Too old
+        assertNull(cache.get("b", 2000, 1)); // Not found
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedBySize() {
+        String body = "x".repeat(1000);
+        ResponseMemoryCache cache = new ResponseMemoryCache(2500);
+
+        cache.put("a", new CachedResponse(0, body));
+        cache.put("b", new CachedResponse(0, body));
+        cache.get("a", 0, 1); // "b" is now least recently used
+        cache.put("c", new CachedResponse(0, body));
+
+        assertNotNull(cache.get("a", 0, 1));
+        assertNull(cache.get("b", 0, 1));
+        assertNotNull(cache.get("c", 0, 1));
+        assertTrue(cache.getUsedBytes() <= 2500);
+    }
+
+    @Test
+    void testPutReplacesAndInvalidateRemoves() {
+        ResponseMemoryCache cache = new ResponseMemoryCache(1024 * 1024);
+        cache.put("a", new CachedResponse(0, "old"));
+        long usedBytes = cache.getUsedBytes();
+        cache.put("a", new CachedResponse(0, "new"));
+
+        assertEquals("new", cache.get("a", 0, 1).getResponse());
+        assertEquals(usedBytes, cache.getUsedBytes());
+
+        cache.invalidate("a");
+        assertNull(cache.get("a", 0, 1));
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    @Test
+    void testTooLargeIsNotCached() {
+        ResponseMemoryCache cache = new ResponseMemoryCache(100);
+        cache.put("a", new CachedResponse(0, "x".repeat(1000)));
+
+        assertNull(cache.get("a", 0, 1));
+        assertEquals(0, cache.getUsedBytes());
+    }
+}
@@ -0,0 +1,92 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.CacheKey;
+import fi.tuni.compse110.java3.io.DiskIO;
+import fi.tuni.compse110.java3.io.RateLimit;
+import fi.tuni.compse110.java3.io.StandInServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StandInServerTest {
+
+    private static final String FIXTURES = "target/standin-fixtures/";
+
+    // Own client instead of CachedRequest, so that the tests don't go through or fill the application's cache
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private StandInServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    /**
+     * Records a fixture for the path and returns the url of it on the running server.
+     */
+    private String fixture(String path, String body) throws IOException {
+        String url = server.getBaseUrl() + path;
+        DiskIO.writeBytes(FIXTURES + CacheKey.getFixtureKey(url) + StandInServer.FIXTURE_SUFFIX,
+                body.getBytes(StandardCharsets.UTF_8));
+        return url;
+    }
+
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testServesRecordedResponse() throws Exception {
+        server = StandInServer.builder().fixtureDirectory(FIXTURES).build();
+        server.start();
+
+        String url = fixture("api/v3/coins/bitcoin/market_chart?vs_currency=eur&days=1", "{\"prices\":[[1,2.5]]}");
+        HttpResponse<String> response = get(url);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"prices\":[[1,2.5]]}", response.body());
+        assertTrue(response.headers().firstValue("ETag").isPresent());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void testMissingFixture() throws Exception {
+        server = StandInServer.builder().fixtureDirectory(FIXTURES).build();
+        server.start();
+
+        assertEquals(404, get(server.getBaseUrl() + "v1/latest?api_key=&missing=" + System.nanoTime()).statusCode());
+    }
+
+    @Test
+    void testRateLimit() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        server = StandInServer.builder().fixtureDirectory(FIXTURES).rateLimit(new RateLimit(60, 1))
+                .clock(clock::get).build();
+        server.start();
+
+        String url = fixture("v1/latest?api_key=&currency=EUR", "{\"metals\":{}}");
+
+        assertEquals(200, get(url).statusCode());
+
+        // The quota is used up until the clock moves on by the time the server asks to wait
+        HttpResponse<String> refused = get(url);
+        assertEquals(429, refused.statusCode());
+        assertEquals("1", refused.headers().firstValue("Retry-After").orElse(null));
+
+        clock.addAndGet(1000);
+        assertEquals("{\"metals\":{}}", get(url).body());
+        assertEquals(3, server.getRequestCount());
+    }
+}
@@ -0,0 +1,155 @@
+package fi.tuni.compse110.java3.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.tuni.compse110.java3.data.TimeSeries;
+import org.junit.jupiter.api.Test;
+
+public class TimeSeriesTest {
+
+    private static TimeSeries series(long[] timestamps, double[] values) {
+        return new TimeSeries(timestamps, values);
+    }
+
+    @Test
+    void testBuilderSortsPointsAppendedOutOfOrder() {
+        TimeSeries series = TimeSeries.builder(2)
+                .append(3, 30, 300)
+                .append(1, 10, 100)
+                .append(2, 20, 200)
+                .build();
+
+        assertEquals(3, series.size());
+        assertEquals(2, series.getColumnCount());
+        assertEquals(1, series.getTimestamp(0));
+        assertEquals(2, series.getTimestamp(1));
+        assertEquals(3, series.getTimestamp(2));
+        assertEquals(10.0, series.getValue(0, 0));
+        assertEquals(300.0, series.getValue(1, 2));
+    }
+
+    @Test
+    void testBuilderGrowsAndRejectsWrongValueCount() {
+        TimeSeries.TimeSeriesBuilder builder = TimeSeries.builder(1);
+        for (int i = 0; i < 100; i++) {
+            builder.append(i, i * 2.0);
+        }
+        TimeSeries series = builder.build();
+
+        assertEquals(100, series.size());
+        assertEquals(198.0, series.getValue(0, 99));
+        assertThrows(IllegalArgumentException.class, () -> TimeSeries.builder(2).append(1, 1.0));
+    }
+
+    @Test
+    void testInvalidArrays() {
+        assertThrows(IllegalArgumentException.class, () -> series(new long[] { 1, 2 }, new double[] { 1 }));
+        assertThrows(IllegalArgumentException.class, () -> series(new long[] { 2, 1 }, new double[] { 1, 2 }));
+    }
+
+    @Test
+    void testRangeAndColumnViews() {
+        long[] timestamps = { 1, 2, 3, 4, 5 };
+        double[] prices = { 10, 20, 30, 40, 50 };
+        double[] volumes = { 1, 2, 3, 4, 5 };
+        TimeSeries series = new TimeSeries(timestamps, prices, volumes);
+
+        TimeSeries range = series.range(1, 4);
+        assertEquals(3, range.size());
+        assertEquals(2, range.getTimestamp(0));
+        assertEquals(40.0, range.getValue(0, 2));
+
+        TimeSeries volume = range.column(1);
+        assertEquals(1, volume.getColumnCount());
+        assertEquals(2.0, volume.getValue(0, 0));
+        assertEquals(9.0, volume.sum(0));
+
+        // Views share the arrays of the series
+        prices[2] = 31;
+        assertEquals(31.0, range.getValue(0, 1));
+
+        assertTrue(series.range(2, 2).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> series.range(3, 6));
+        assertThrows(IndexOutOfBoundsException.class, () -> series.range(3, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> range.getValue(0, 3));
+    }
+
+    @Test
+    void testBetween() {
+        TimeSeries series = series(new long[] { 10, 20, 20, 30, 40 }, new double[] { 1, 2, 3, 4, 5 });
+
+        TimeSeries range = series.between(15, 30);
+        assertArrayEquals(new long[] { 20, 20, 30 }, timestamps(range));
+        assertEquals(2.0, range.getValue(0, 0));
+
+        assertArrayEquals(new long[] { 10, 20, 20, 30, 40 }, timestamps(series.between(10, 40)));
+        assertArrayEquals(new long[] { 40 }, timestamps(series.between(40, Long.MAX_VALUE)));
+        assertArrayEquals(new long[] { 10 }, timestamps(series.between(Long.MIN_VALUE, 10)));
+        assertTrue(series.between(21, 29).isEmpty());
+        assertTrue(series.between(41, 50).isEmpty());
+        assertTrue(series.between(30, 20).isEmpty());
+
+        // Bounds of a view are relative to the view
+        TimeSeries view = series.range(2, 5);
+        assertEquals(0, view.lowerBound(20));
+        assertEquals(1, view.upperBound(20));
+        assertEquals(3, view.lowerBound(50));
+        assertArrayEquals(new long[] { 30 }, timestamps(view.between(25, 35)));
+    }
+
+    @Test
+    void testMap() {
+        TimeSeries series = series(new long[] { 1, 2, 3 }, new double[] { 2, 4, 6 }).range(1, 3);
+
+        TimeSeries halved = series.map(0, value -> value / 2);
+
+        assertEquals(2, halved.size());
+        assertEquals(2, halved.getTimestamp(0));
+        assertEquals(2.0, halved.getValue(0, 0));
+        assertEquals(3.0, halved.getValue(0, 1));
+        assertEquals(10.0, series.sum(0));
+    }
+
+    @Test
+    void testAppendConcatenates() {
+        TimeSeries first = series(new long[] { 1, 2 }, new double[] { 10, 20 });
+        TimeSeries second = series(new long[] { 3, 4 }, new double[] { 30, 40 });
+
+        TimeSeries appended = first.append(second);
+
+        assertEquals(4, appended.size());
+        assertEquals(3, appended.getTimestamp(2));
+        assertEquals(40.0, appended.getValue(0, 3));
+        assertSame(first, first.append(series(new long[0], new double[0])));
+    }
+
+    @Test
+    void testAppendOverlappingMerges() {
+        TimeSeries first = series(new long[] { 1, 3, 5 }, new double[] { 10, 30, 50 });
+        TimeSeries second = series(new long[] { 2, 3, 6 }, new double[] { 20, 31, 60 });
+
+        TimeSeries appended = first.append(second);
+
+        assertEquals(5, appended.size());
+        assertArrayEquals(new long[] { 1, 2, 3, 5, 6 }, timestamps(appended));
+        // The point of the appended series replaces the one with the same timestamp
+        assertEquals(31.0, appended.getValue(0, 2));
+    }
+
+    @Test
+    void testMergeRejectsDifferentColumns() {
+        TimeSeries single = series(new long[] { 1 }, new double[] { 1 });
+        TimeSeries pair = new TimeSeries(new long[] { 2 }, new double[] { 2 }, new double[] { 2 });
+
+        assertThrows(IllegalArgumentException.class, () -> single.merge(pair));
+        assertThrows(IllegalArgumentException.class, () -> single.append(pair));
+    }
+
+    private static long[] timestamps(TimeSeries series) {
+        long[] timestamps = new long[series.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = series.getTimestamp(i);
+        }
+        return timestamps;
+    }
+}
@@ -0,0 +1,139 @@
+package fi.tuni.compse110.java3.utility;
+
+import fi.tuni.compse110.java3.io.DiskIO;
+import fi.tuni.compse110.java3.io.WriteBehindQueue;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindQueueTest {
+
+    @Test
+    void testCoalescesPendingWrites() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+
+        WriteBehindQueue queue = new WriteBehindQueue((file, data) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            written.add(file + "=" + new String(data, StandardCharsets.UTF_8));
+        });
+
+        // The writer blocks on the first write while the next ones queue up
+        queue.submit("a", "1".getBytes(StandardCharsets.UTF_8));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queue.submit("b", "1".getBytes(StandardCharsets.UTF_8));
+        queue.submit("b", "2".getBytes(StandardCharsets.UTF_8));
+        queue.submit("b", "3".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("3", new String(queue.getPending("b"), StandardCharsets.UTF_8));
+
+        release.countDown();
+        queue.flush();
+
+        assertEquals(List.of("a=1", "b=3"), written);
+        assertNull(queue.getPending("b"));
+    }
+
+    @Test
+    void testCancelWaitsForWriteInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        WriteBehindQueue queue = new WriteBehindQueue((file, data) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            events.add("written");
+        });
+
+        queue.submit("a", "1".getBytes(StandardCharsets.UTF_8));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread canceller = new Thread(() -> {
+            try {
+                queue.cancel("a");
+                events.add("cancelled");
+            } catch (InterruptedException ignored) {
+            }
+        });
+        canceller.start();
+
+        // The write has already started, so cancelling waits for it instead of racing it
+        canceller.join(200);
+        assertTrue(canceller.isAlive());
+
+        release.countDown();
+        canceller.join(5000);
+        assertEquals(List.of("written", "cancelled"), events);
+    }
+
+    @Test
+    void testReportsFailedWrite() throws Exception {
+        WriteBehindQueue queue = new WriteBehindQueue((file, data) -> {
+            throw new IOException("disk full");
+        });
+
+        queue.submit("a", "1".getBytes(StandardCharsets.UTF_8));
+        queue.submit("b", "1".getBytes(StandardCharsets.UTF_8));
+        IOException failure = assertThrows(IOException.class, () -> queue.flush("a"));
+        assertEquals("disk full", failure.getCause().getMessage());
+
+        // The failure is reported once, the data stays readable until then
+        queue.flush("a");
+        assertNull(queue.getPending("a"));
+        assertEquals("1", new String(queue.getPending("b"), StandardCharsets.UTF_8));
+
+        // The next write to the same file reports it too, writes are committed in order so "b" has failed by now
+        queue.submit("c", "1".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> queue.flush("c"));
+        assertThrows(IOException.class, () -> queue.submit("b", "2".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, queue::flush);
+    }
+
+    @Test
+    void testKeepsWritingAfterUncheckedFailure() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        WriteBehindQueue queue = new WriteBehindQueue((file, data) -> {
+            if (file.equals("a")) {
+                throw new SecurityException("denied");
+            }
+            written.add(file);
+        });
+
+        queue.submit("a", "1".getBytes(StandardCharsets.UTF_8));
+        IOException failure = assertThrows(IOException.class, () -> queue.flush("a"));
+        assertEquals("denied", failure.getCause().getMessage());
+
+        queue.submit("b", "1".getBytes(StandardCharsets.UTF_8));
+        queue.flush();
+        assertEquals(List.of("b"), written);
+    }
+
+    @Test
+    void testReadsSeePendingWrite() throws Exception {
+        DiskIO.writeBytes("target/write-behind.txt", "old".getBytes(StandardCharsets.UTF_8));
+        DiskIO.writeLater("target/write-behind.txt", "new".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("new", DiskIO.readFromDisk("target/write-behind.txt"));
+        assertEquals(3, DiskIO.size("target/write-behind.txt"));
+
+        DiskIO.flush();
+
+        assertEquals("new", DiskIO.readFromDisk("target/write-behind.txt"));
+    }
+}